@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import ru.ming13.gambit.database.DatabaseSchema;
+
+public final class DatabaseFixtures
+{
+	private DatabaseFixtures() {
+	}
+
+	public static long createDeck(@NonNull SQLiteDatabase database, @NonNull String deckTitle) {
+		ContentValues deckValues = new ContentValues();
+
+		deckValues.put(DatabaseSchema.DecksColumns.TITLE, deckTitle);
+		deckValues.put(DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX, DatabaseSchema.DecksColumnsDefaultValues.CURRENT_CARD_INDEX);
+
+		return database.insert(DatabaseSchema.Tables.DECKS, null, deckValues);
+	}
+
+	public static long createCard(@NonNull SQLiteDatabase database, long deckId, @NonNull String frontSideText, @NonNull String backSideText) {
+		ContentValues cardValues = new ContentValues();
+
+		cardValues.put(DatabaseSchema.CardsColumns.DECK_ID, deckId);
+		cardValues.put(DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT, frontSideText);
+		cardValues.put(DatabaseSchema.CardsColumns.BACK_SIDE_TEXT, backSideText);
+		cardValues.put(DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumnsDefaultValues.ORDER_INDEX);
+
+		return database.insert(DatabaseSchema.Tables.CARDS, null, cardValues);
+	}
+
+	public static void createCards(@NonNull SQLiteDatabase database, long deckId, int cardsCount) {
+		// Cards are numbered, so tests can find particular ones by their sides
+
+		database.beginTransaction();
+
+		try {
+			for (int cardIndex = 0; cardIndex < cardsCount; cardIndex++) {
+				createCard(database, deckId, String.format("Front %d", cardIndex), String.format("Back %d", cardIndex));
+			}
+
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.test.RenamingDelegatingContext;
+
+public class DatabaseTestContext extends RenamingDelegatingContext
+{
+	private static final String FILE_PREFIX = "test.";
+
+	public DatabaseTestContext(@NonNull Context context) {
+		super(context, FILE_PREFIX);
+	}
+
+	@Override
+	public Context getApplicationContext() {
+		// Operators keep the application context, it should stay with renamed databases
+
+		return this;
+	}
+}
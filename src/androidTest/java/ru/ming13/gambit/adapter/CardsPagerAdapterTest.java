@@ -0,0 +1,253 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.adapter;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.support.v4.view.ViewPager;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.test.mock.MockContentProvider;
+import android.test.mock.MockContentResolver;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.ming13.gambit.R;
+import ru.ming13.gambit.cursor.CardBackSides;
+import ru.ming13.gambit.model.Card;
+import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.provider.GambitContract;
+import ru.ming13.gambit.util.Android;
+
+public class CardsPagerAdapterTest extends InstrumentationTestCase
+{
+	private static final class Benchmark
+	{
+		private Benchmark() {
+		}
+
+		public static final int CARDS_COUNT = 100;
+		public static final int FLIPS_COUNT = 20;
+
+		public static final int PAGE_WIDTH = 720;
+		public static final int PAGE_HEIGHT = 1280;
+
+		public static final int BACK_SIDES_ATTEMPTS_COUNT = 50;
+		public static final long BACK_SIDES_ATTEMPT_DELAY = 20;
+	}
+
+	private static final String TAG = "CardsPagerAdapterTest";
+
+	private CardsPagerAdapter cardsAdapter;
+	private CardBackSides cardBackSides;
+	private List<View> cardViews;
+
+	private void setUpCardViews() {
+		// Pages are created the way the pager does it, with the middle one on the screen
+
+		Context context = new ContextThemeWrapper(getInstrumentation().getTargetContext(), R.style.Theme_Gambit);
+
+		ViewPager cardsPager = new ViewPager(context);
+
+		cardsAdapter = new CardsPagerAdapter(context);
+		cardBackSides = CardBackSides.of(buildContentResolver(), new Deck(1, "Benchmark"), cardsAdapter);
+
+		cardsAdapter.refill(buildCards(), cardBackSides);
+
+		cardViews = new ArrayList<>();
+
+		for (int cardPosition = 0; cardPosition < 3; cardPosition++) {
+			View cardView = (View) cardsAdapter.instantiateItem(cardsPager, cardPosition);
+
+			cardView.measure(
+				View.MeasureSpec.makeMeasureSpec(Benchmark.PAGE_WIDTH, View.MeasureSpec.EXACTLY),
+				View.MeasureSpec.makeMeasureSpec(Benchmark.PAGE_HEIGHT, View.MeasureSpec.EXACTLY));
+			cardView.layout(0, 0, Benchmark.PAGE_WIDTH, Benchmark.PAGE_HEIGHT);
+
+			cardViews.add(cardView);
+		}
+
+		cardsAdapter.setPrimaryItem(cardsPager, 1, cardViews.get(1));
+	}
+
+	private List<Card> buildCards() {
+		List<Card> cards = new ArrayList<>();
+
+		for (int cardId = 1; cardId <= Benchmark.CARDS_COUNT; cardId++) {
+			cards.add(new Card(cardId, String.format("Front %d", cardId), String.format("Back %d", cardId)));
+		}
+
+		return cards;
+	}
+
+	private MockContentResolver buildContentResolver() {
+		MockContentResolver contentResolver = new MockContentResolver();
+
+		contentResolver.addProvider(GambitContract.AUTHORITY, new MockContentProvider() {
+			@Override
+			public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArguments, String sortOrder) {
+				MatrixCursor cardCursor = new MatrixCursor(projection);
+				cardCursor.addRow(new Object[] {String.format("Back %s", uri.getLastPathSegment())});
+
+				return cardCursor;
+			}
+		});
+
+		return contentResolver;
+	}
+
+	public void testFlipRebindsInPlace() throws Throwable {
+		// Back sides arrive from background tasks, the main thread is left free to deliver them
+
+		runTestOnUiThread(new Runnable() {
+			@Override
+			public void run() {
+				setUpCardViews();
+			}
+		});
+
+		waitForBackSides();
+
+		runTestOnUiThread(new Runnable() {
+			@Override
+			public void run() {
+				assertFlipRebindsInPlace();
+			}
+		});
+	}
+
+	private void waitForBackSides() throws Throwable {
+		for (int attemptIndex = 0; attemptIndex < Benchmark.BACK_SIDES_ATTEMPTS_COUNT; attemptIndex++) {
+			getInstrumentation().waitForIdleSync();
+
+			if (areBackSidesLoaded()) {
+				return;
+			}
+
+			SystemClock.sleep(Benchmark.BACK_SIDES_ATTEMPT_DELAY);
+		}
+
+		fail("Back sides were not loaded");
+	}
+
+	private boolean areBackSidesLoaded() throws Throwable {
+		final boolean[] backSidesLoaded = {true};
+
+		runTestOnUiThread(new Runnable() {
+			@Override
+			public void run() {
+				for (int cardPosition = 0; cardPosition < cardViews.size(); cardPosition++) {
+					Card card = getCardViewHolder(cardPosition).card;
+
+					if (cardBackSides.getBackSideText(card).isEmpty()) {
+						backSidesLoaded[0] = false;
+					}
+				}
+			}
+		});
+
+		return backSidesLoaded[0];
+	}
+
+	private void assertFlipRebindsInPlace() {
+		cardsAdapter.flipCards();
+
+		for (int cardPosition = 0; cardPosition < cardViews.size(); cardPosition++) {
+			CardsPagerAdapter.CardViewHolder cardViewHolder = getCardViewHolder(cardPosition);
+
+			// Pages stay the same views, only the side they show is changed
+
+			assertEquals(cardPosition, cardViewHolder.cardPosition);
+			assertEquals(String.format("Back %d", cardPosition + 1), cardViewHolder.cardText.getText().toString());
+
+			if ((cardPosition == 1) && Android.isAnimatorEnabled(cardViewHolder.cardContainer.getContext())) {
+				assertEquals(View.LAYER_TYPE_HARDWARE, cardViewHolder.cardContainer.getLayerType());
+			} else {
+				assertEquals(View.LAYER_TYPE_NONE, cardViewHolder.cardContainer.getLayerType());
+				assertEquals(0f, cardViewHolder.cardContainer.getRotationY());
+			}
+		}
+
+		cardsAdapter.flipCards();
+
+		for (int cardPosition = 0; cardPosition < cardViews.size(); cardPosition++) {
+			assertEquals(String.format("Front %d", cardPosition + 1), getCardViewHolder(cardPosition).cardText.getText().toString());
+		}
+	}
+
+	@UiThreadTest
+	public void testFlipLatency() {
+		setUpCardViews();
+
+		Bitmap pageBitmap = Bitmap.createBitmap(Benchmark.PAGE_WIDTH, Benchmark.PAGE_HEIGHT, Bitmap.Config.ARGB_8888);
+		Canvas pageCanvas = new Canvas(pageBitmap);
+
+		long flipTime = 0;
+		long[] pagesDrawTimes = new long[cardViews.size()];
+
+		for (int flipIndex = 0; flipIndex < Benchmark.FLIPS_COUNT; flipIndex++) {
+			long flipStartTime = System.nanoTime();
+			cardsAdapter.flipCards();
+			flipTime += System.nanoTime() - flipStartTime;
+
+			// A frame of every page after the flip, measured and drawn the way the next traversal would
+
+			for (int cardPosition = 0; cardPosition < cardViews.size(); cardPosition++) {
+				View cardView = cardViews.get(cardPosition);
+
+				long drawStartTime = System.nanoTime();
+
+				cardView.measure(
+					View.MeasureSpec.makeMeasureSpec(Benchmark.PAGE_WIDTH, View.MeasureSpec.EXACTLY),
+					View.MeasureSpec.makeMeasureSpec(Benchmark.PAGE_HEIGHT, View.MeasureSpec.EXACTLY));
+				cardView.layout(0, 0, Benchmark.PAGE_WIDTH, Benchmark.PAGE_HEIGHT);
+				cardView.draw(pageCanvas);
+
+				pagesDrawTimes[cardPosition] += System.nanoTime() - drawStartTime;
+			}
+		}
+
+		pageBitmap.recycle();
+
+		Log.i(TAG, String.format("Flip latency: %.3f ms.", toMillis(flipTime / Benchmark.FLIPS_COUNT)));
+
+		for (int cardPosition = 0; cardPosition < cardViews.size(); cardPosition++) {
+			Log.i(TAG, String.format("Page %d frame time: %.3f ms.", cardPosition, toMillis(pagesDrawTimes[cardPosition] / Benchmark.FLIPS_COUNT)));
+		}
+
+		// Rebinding in place has to fit well into a single frame
+
+		assertTrue(toMillis(flipTime / Benchmark.FLIPS_COUNT) < 16);
+	}
+
+	private CardsPagerAdapter.CardViewHolder getCardViewHolder(int cardPosition) {
+		return (CardsPagerAdapter.CardViewHolder) cardViews.get(cardPosition).getTag();
+	}
+
+	private double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+}
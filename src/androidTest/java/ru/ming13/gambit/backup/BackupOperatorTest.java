@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import java.io.File;
+
+import ru.ming13.gambit.DatabaseFixtures;
+import ru.ming13.gambit.DatabaseTestContext;
+import ru.ming13.gambit.database.DatabaseOpenHelper;
+import ru.ming13.gambit.database.DatabaseProgressListener;
+import ru.ming13.gambit.database.DatabaseSchema;
+
+public class BackupOperatorTest extends AndroidTestCase
+{
+	private static final class Fixtures
+	{
+		private Fixtures() {
+		}
+
+		public static final int CARDS_COUNT = 500;
+		public static final int DUPLICATED_CARDS_COUNT = 3;
+
+		public static final String DATABASE_NAME = "gambit.db";
+		public static final String BACKUP_NAME = "backup.gambit";
+	}
+
+	private DatabaseTestContext databaseContext;
+	private File backupFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		databaseContext = new DatabaseTestContext(getContext());
+		databaseContext.deleteDatabase(Fixtures.DATABASE_NAME);
+
+		backupFile = new File(databaseContext.getCacheDir(), Fixtures.BACKUP_NAME);
+		backupFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		databaseContext.deleteDatabase(Fixtures.DATABASE_NAME);
+
+		backupFile.delete();
+
+		super.tearDown();
+	}
+
+	public void testIncrementalBackup() {
+		BackupOperator backupOperator = BackupOperator.with(databaseContext, FileBackupTransport.of(backupFile));
+
+		SQLiteDatabase database = openDatabase();
+		long deckId = DatabaseFixtures.createDeck(database, "Spanish");
+
+		DatabaseFixtures.createCards(database, deckId, Fixtures.CARDS_COUNT);
+
+		database.close();
+
+		backupOperator.exportBackup();
+
+		long baseLength = backupFile.length();
+
+		assertTrue(baseLength > 0);
+		assertFalse(backupOperator.isBackupOutdated());
+
+		// A few edits go to the backup as a small segment after the base
+
+		database = openDatabase();
+
+		database.execSQL("update Cards set back_page_side = 'Changed' where front_page_side = 'Front 1'");
+		database.execSQL("delete from Cards where front_page_side = 'Front 2'");
+		DatabaseFixtures.createCard(database, deckId, "Created", "Created");
+
+		database.close();
+
+		assertTrue(backupOperator.isBackupOutdated());
+
+		backupOperator.exportBackup();
+
+		long changesLength = backupFile.length() - baseLength;
+
+		assertTrue(changesLength > 0);
+		assertTrue(String.format("Base %d bytes, changes %d bytes.", baseLength, changesLength), changesLength < baseLength / 10);
+
+		// Nothing changed since the last export, nothing is appended
+
+		backupOperator.exportBackup();
+
+		assertEquals(baseLength + changesLength, backupFile.length());
+
+		// The base and its changes restore the latest state into an empty database
+
+		databaseContext.deleteDatabase(Fixtures.DATABASE_NAME);
+
+		backupOperator.importBackup(new DatabaseProgressListener() {
+			@Override
+			public void onProgress(long processedRowsCount, long rowsCount, long processedBytesCount, long bytesCount) {
+			}
+		});
+
+		database = openDatabase();
+
+		try {
+			assertEquals(Fixtures.CARDS_COUNT, DatabaseUtils.queryNumEntries(database, DatabaseSchema.Tables.CARDS, "deck_id = ?", new String[] {String.valueOf(deckId)}));
+
+			assertEquals("Changed", DatabaseUtils.stringForQuery(database, "select back_page_side from Cards where front_page_side = 'Front 1'", null));
+			assertEquals(0, DatabaseUtils.queryNumEntries(database, DatabaseSchema.Tables.CARDS, "front_page_side = 'Front 2'", null));
+			assertEquals(1, DatabaseUtils.queryNumEntries(database, DatabaseSchema.Tables.CARDS, "front_page_side = 'Created'", null));
+		} finally {
+			database.close();
+		}
+	}
+
+	public void testDuplicatedCardsImport() {
+		BackupOperator backupOperator = BackupOperator.with(databaseContext, FileBackupTransport.of(backupFile));
+
+		SQLiteDatabase database = openDatabase();
+		long deckId = DatabaseFixtures.createDeck(database, "Spanish");
+
+		for (int cardIndex = 0; cardIndex < Fixtures.DUPLICATED_CARDS_COUNT; cardIndex++) {
+			DatabaseFixtures.createCard(database, deckId, "Duplicated", "Duplicated");
+		}
+
+		DatabaseFixtures.createCard(database, deckId, "Single", "Single");
+
+		database.close();
+
+		backupOperator.exportBackup();
+
+		// Every imported duplicate matches its own card, so imports change nothing
+
+		for (int importIndex = 0; importIndex < 2; importIndex++) {
+			backupOperator.importBackup(new DatabaseProgressListener() {
+				@Override
+				public void onProgress(long processedRowsCount, long rowsCount, long processedBytesCount, long bytesCount) {
+				}
+			});
+
+			database = openDatabase();
+
+			try {
+				assertEquals(Fixtures.DUPLICATED_CARDS_COUNT, DatabaseUtils.queryNumEntries(database, DatabaseSchema.Tables.CARDS, "front_page_side = 'Duplicated'", null));
+				assertEquals(1, DatabaseUtils.queryNumEntries(database, DatabaseSchema.Tables.CARDS, "front_page_side = 'Single'", null));
+			} finally {
+				database.close();
+			}
+		}
+	}
+
+	private SQLiteDatabase openDatabase() {
+		return new DatabaseOpenHelper(databaseContext).getWritableDatabase();
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import ru.ming13.gambit.DatabaseFixtures;
+import ru.ming13.gambit.DatabaseTestContext;
+import ru.ming13.gambit.database.DatabaseOpenHelper;
+import ru.ming13.gambit.database.DatabaseProgressListener;
+import ru.ming13.gambit.database.DatabaseSchema;
+
+public class BackupTransportTest extends AndroidTestCase
+{
+	private static final class Fixtures
+	{
+		private Fixtures() {
+		}
+
+		public static final int CARDS_COUNT = 5000;
+
+		public static final String DATABASE_NAME = "gambit.db";
+		public static final String BACKUP_NAME = "backup.gambit";
+	}
+
+	private static final String TAG = "BackupTransportTest";
+
+	private DatabaseTestContext databaseContext;
+	private File backupFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		databaseContext = new DatabaseTestContext(getContext());
+		databaseContext.deleteDatabase(Fixtures.DATABASE_NAME);
+
+		backupFile = new File(databaseContext.getCacheDir(), Fixtures.BACKUP_NAME);
+		backupFile.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		databaseContext.deleteDatabase(Fixtures.DATABASE_NAME);
+
+		backupFile.delete();
+
+		super.tearDown();
+	}
+
+	public void testFileTransportAbortion() throws IOException {
+		BackupTransport backupTransport = FileBackupTransport.of(backupFile);
+
+		writeBackup(backupTransport.startBackupWriting(), "base");
+		backupTransport.finishBackupWriting();
+
+		// An aborted base leaves the previous backup, an aborted segment is cut off
+
+		writeBackup(backupTransport.startBackupWriting(), "broken base");
+		backupTransport.abortBackupWriting();
+
+		assertEquals("base".length(), backupTransport.getBackupLength());
+
+		writeBackup(backupTransport.startBackupAppending(), "broken segment");
+		backupTransport.abortBackupWriting();
+
+		assertEquals("base".length(), backupTransport.getBackupLength());
+
+		writeBackup(backupTransport.startBackupAppending(), "segment");
+		backupTransport.finishBackupWriting();
+
+		assertEquals("basesegment".length(), backupTransport.getBackupLength());
+	}
+
+	private void writeBackup(OutputStream backupStream, String backupContents) throws IOException {
+		backupStream.write(backupContents.getBytes());
+		backupStream.flush();
+	}
+
+	public void testMemoryTransportThroughput() {
+		measureThroughput("memory", new MemoryBackupTransport());
+	}
+
+	public void testFileTransportThroughput() {
+		measureThroughput("file", FileBackupTransport.of(backupFile));
+	}
+
+	private void measureThroughput(String transportName, BackupTransport backupTransport) {
+		createCards();
+
+		BackupOperator backupOperator = BackupOperator.with(databaseContext, backupTransport);
+
+		long exportStartTime = SystemClock.elapsedRealtime();
+		backupOperator.exportBackup();
+		long exportTime = SystemClock.elapsedRealtime() - exportStartTime;
+
+		databaseContext.deleteDatabase(Fixtures.DATABASE_NAME);
+
+		long importStartTime = SystemClock.elapsedRealtime();
+		backupOperator.importBackup(new DatabaseProgressListener() {
+			@Override
+			public void onProgress(long processedRowsCount, long rowsCount, long processedBytesCount, long bytesCount) {
+			}
+		});
+		long importTime = SystemClock.elapsedRealtime() - importStartTime;
+
+		long backupLength = getBackupLength(backupTransport);
+
+		Log.i(TAG, String.format("Transport %s, %d bytes: export %d ms (%d KiB/s), import %d ms (%d KiB/s).",
+			transportName, backupLength,
+			exportTime, getThroughput(backupLength, exportTime),
+			importTime, getThroughput(backupLength, importTime)));
+
+		assertEquals(Fixtures.CARDS_COUNT, getCardsCount());
+	}
+
+	private void createCards() {
+		SQLiteDatabase database = new DatabaseOpenHelper(databaseContext).getWritableDatabase();
+
+		try {
+			DatabaseFixtures.createCards(database, DatabaseFixtures.createDeck(database, "Benchmark"), Fixtures.CARDS_COUNT);
+		} finally {
+			database.close();
+		}
+	}
+
+	private long getBackupLength(BackupTransport backupTransport) {
+		try {
+			return backupTransport.getBackupLength();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private long getThroughput(long bytesCount, long time) {
+		return bytesCount * 1000 / 1024 / Math.max(time, 1);
+	}
+
+	private long getCardsCount() {
+		SQLiteDatabase database = new DatabaseOpenHelper(databaseContext).getReadableDatabase();
+
+		try {
+			// The default deck comes with its own cards, only benchmark ones are counted
+
+			return DatabaseUtils.queryNumEntries(database, DatabaseSchema.Tables.CARDS,
+				"deck_id in (select _id from Decks where title = 'Benchmark')", null);
+		} finally {
+			database.close();
+		}
+	}
+}
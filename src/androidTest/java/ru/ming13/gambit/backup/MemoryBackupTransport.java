@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public final class MemoryBackupTransport implements BackupTransport
+{
+	private byte[] backupContents;
+
+	private ByteArrayOutputStream backupStream;
+
+	public MemoryBackupTransport() {
+		this.backupContents = new byte[0];
+	}
+
+	@Override
+	public long getBackupLength() {
+		return backupContents.length;
+	}
+
+	@Override
+	public InputStream startBackupReading() {
+		return new ByteArrayInputStream(backupContents);
+	}
+
+	@Override
+	public void finishBackupReading() {
+	}
+
+	@Override
+	public OutputStream startBackupWriting() {
+		backupStream = new ByteArrayOutputStream();
+
+		return backupStream;
+	}
+
+	@Override
+	public OutputStream startBackupAppending() throws IOException {
+		backupStream = new ByteArrayOutputStream();
+		backupStream.write(backupContents);
+
+		return backupStream;
+	}
+
+	@Override
+	public void finishBackupWriting() {
+		backupContents = backupStream.toByteArray();
+
+		backupStream = null;
+	}
+
+	@Override
+	public void abortBackupWriting() {
+		backupStream = null;
+	}
+}
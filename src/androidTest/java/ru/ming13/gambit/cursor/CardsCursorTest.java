@@ -0,0 +1,171 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.cursor;
+
+import android.content.ContentValues;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import ru.ming13.gambit.model.Card;
+import ru.ming13.gambit.provider.GambitContract;
+
+public class CardsCursorTest extends AndroidTestCase
+{
+	private static final class Benchmark
+	{
+		private Benchmark() {
+		}
+
+		public static final int CARDS_COUNT = 1000;
+	}
+
+	private static final String TAG = "CardsCursorTest";
+
+	private SQLiteDatabase database;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		// Rows come from a real cursor window, strings read from it are allocated the same way as in the app
+
+		database = SQLiteDatabase.create(null);
+
+		database.execSQL(String.format("create table Cards (%s integer primary key, %s text, %s text, %s integer)",
+			GambitContract.Cards._ID,
+			GambitContract.Cards.FRONT_SIDE_TEXT,
+			GambitContract.Cards.BACK_SIDE_TEXT,
+			GambitContract.Cards.ORDER_INDEX));
+
+		for (int cardIndex = 0; cardIndex < Benchmark.CARDS_COUNT; cardIndex++) {
+			ContentValues cardValues = new ContentValues();
+
+			cardValues.put(GambitContract.Cards.FRONT_SIDE_TEXT, String.format("Front %d", cardIndex));
+			cardValues.put(GambitContract.Cards.BACK_SIDE_TEXT, String.format("Back %d", cardIndex));
+			cardValues.put(GambitContract.Cards.ORDER_INDEX, cardIndex);
+
+			database.insert("Cards", null, cardValues);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		database.close();
+
+		super.tearDown();
+	}
+
+	public void testRowBinding() {
+		CardsCursor cardsCursor = queryCards();
+		CardRow cardRow = new CardRow();
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				Card card = cardsCursor.peek();
+				cardsCursor.fill(cardRow);
+
+				assertEquals(card.getId(), cardRow.getId());
+				assertEquals(card.getFrontSideText(), getText(cardRow.getFrontSideText()));
+				assertEquals(card.getBackSideText(), getText(cardRow.getBackSideText()));
+			}
+		} finally {
+			cardsCursor.close();
+		}
+	}
+
+	private String getText(CharArrayBuffer textBuffer) {
+		return new String(textBuffer.data, 0, textBuffer.sizeCopied);
+	}
+
+	public void testRowBindingAllocations() {
+		CardsCursor cardsCursor = queryCards();
+		CardRow cardRow = new CardRow();
+
+		try {
+			// The first pass fills cursor windows, only the following passes are measured
+
+			measureAllocations(cardsCursor, null);
+
+			int lookingUpAllocationsCount = measureLookingUpAllocations(cardsCursor);
+			int peekingAllocationsCount = measureAllocations(cardsCursor, null);
+			int fillingAllocationsCount = measureAllocations(cardsCursor, cardRow);
+
+			Log.i(TAG, String.format("Allocations per bound row: %.2f with columns looked up by name, %.2f with models, %.2f with a reusable row.",
+				(float) lookingUpAllocationsCount / Benchmark.CARDS_COUNT,
+				(float) peekingAllocationsCount / Benchmark.CARDS_COUNT,
+				(float) fillingAllocationsCount / Benchmark.CARDS_COUNT));
+
+			assertTrue(lookingUpAllocationsCount >= Benchmark.CARDS_COUNT);
+			assertTrue(peekingAllocationsCount >= Benchmark.CARDS_COUNT);
+			assertTrue(fillingAllocationsCount < lookingUpAllocationsCount / 10);
+			assertTrue(fillingAllocationsCount < Benchmark.CARDS_COUNT / 10);
+		} finally {
+			cardsCursor.close();
+		}
+	}
+
+	private CardsCursor queryCards() {
+		return new CardsCursor(database.query("Cards", GambitContract.Cards.Projections.LIST, null, null, null, null, null));
+	}
+
+	private int measureLookingUpAllocations(Cursor cardsCursor) {
+		// Rows were bound this way before, columns by name for every field and a new model for every row
+
+		cardsCursor.moveToPosition(-1);
+
+		Debug.resetThreadAllocCount();
+		Debug.startAllocCounting();
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				new Card(
+					cardsCursor.getLong(cardsCursor.getColumnIndex(GambitContract.Cards._ID)),
+					cardsCursor.getString(cardsCursor.getColumnIndex(GambitContract.Cards.FRONT_SIDE_TEXT)),
+					cardsCursor.getString(cardsCursor.getColumnIndex(GambitContract.Cards.BACK_SIDE_TEXT)));
+			}
+		} finally {
+			Debug.stopAllocCounting();
+		}
+
+		return Debug.getThreadAllocCount();
+	}
+
+	private int measureAllocations(CardsCursor cardsCursor, CardRow cardRow) {
+		cardsCursor.moveToPosition(-1);
+
+		Debug.resetThreadAllocCount();
+		Debug.startAllocCounting();
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				if (cardRow == null) {
+					cardsCursor.peek();
+				} else {
+					cardsCursor.fill(cardRow);
+				}
+			}
+		} finally {
+			Debug.stopAllocCounting();
+		}
+
+		return Debug.getThreadAllocCount();
+	}
+}
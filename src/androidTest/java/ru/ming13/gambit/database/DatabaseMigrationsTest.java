@@ -0,0 +1,235 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+public class DatabaseMigrationsTest extends AndroidTestCase
+{
+	private static final class LegacySchema
+	{
+		private LegacySchema() {
+		}
+
+		// Frozen as released with the legacy version, migrations start from exactly this
+
+		public static final String DECKS = "create table Decks ("
+			+ "_id integer primary key autoincrement not null unique, "
+			+ "title text not null unique, "
+			+ "current_card_index int not null)";
+
+		public static final String CARDS = "create table Cards ("
+			+ "_id integer primary key autoincrement not null unique, "
+			+ "deck_id integer not null references Decks(_id) on delete cascade, "
+			+ "front_page_side text not null, "
+			+ "back_page_side text not null, "
+			+ "order_index int not null)";
+	}
+
+	private static final class Fixtures
+	{
+		private Fixtures() {
+		}
+
+		public static final long ORDERED_DECK_ID = 1;
+		public static final long SHUFFLED_DECK_ID = 2;
+	}
+
+	private File databaseFile;
+	private SQLiteDatabase database;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		databaseFile = File.createTempFile("migrations", null, getContext().getCacheDir());
+		databaseFile.delete();
+
+		database = SQLiteDatabase.openOrCreateDatabase(databaseFile, null);
+
+		createLegacyDatabase();
+	}
+
+	private void createLegacyDatabase() {
+		database.execSQL(LegacySchema.DECKS);
+		database.execSQL(LegacySchema.CARDS);
+
+		database.execSQL("insert into Decks (_id, title, current_card_index) values (?, 'Ordered', 0)", new Object[] {Fixtures.ORDERED_DECK_ID});
+		database.execSQL("insert into Decks (_id, title, current_card_index) values (?, 'Shuffled', 1)", new Object[] {Fixtures.SHUFFLED_DECK_ID});
+
+		createLegacyCard(Fixtures.ORDERED_DECK_ID, "hola", "hello", 0);
+		createLegacyCard(Fixtures.ORDERED_DECK_ID, "adiós", "goodbye", 0);
+
+		// Shuffled decks kept a shuffled order index for every card
+
+		createLegacyCard(Fixtures.SHUFFLED_DECK_ID, "uno", "one", 2);
+		createLegacyCard(Fixtures.SHUFFLED_DECK_ID, "dos", "two", 3);
+		createLegacyCard(Fixtures.SHUFFLED_DECK_ID, "tres", "three", 1);
+
+		database.setVersion(DatabaseSchema.Versions.LEGACY);
+	}
+
+	private void createLegacyCard(long deckId, String frontSideText, String backSideText, int orderIndex) {
+		database.execSQL("insert into Cards (deck_id, front_page_side, back_page_side, order_index) values (?, ?, ?, ?)",
+			new Object[] {deckId, frontSideText, backSideText, orderIndex});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (database.isOpen()) {
+			database.close();
+		}
+
+		deleteDatabase(databaseFile);
+
+		super.tearDown();
+	}
+
+	public void testShuffleSeeds() {
+		migrate(DatabaseSchema.Versions.SHUFFLE_SEEDS);
+
+		assertEquals(0, getShuffleSeed(Fixtures.ORDERED_DECK_ID));
+		assertTrue(getShuffleSeed(Fixtures.SHUFFLED_DECK_ID) != 0);
+
+		assertEquals(0, queryLong("select count(*) from Cards where order_index <> 0"));
+		assertEquals(5, queryLong("select count(*) from Cards"));
+	}
+
+	public void testCardsIndices() {
+		migrate(DatabaseSchema.Versions.CARDS_INDICES);
+
+		assertTrue(isSchemaObjectAvailable("index", DatabaseSchema.Indices.CARDS_ORDER));
+		assertTrue(isSchemaObjectAvailable("index", DatabaseSchema.Indices.CARDS_FRONT_SIDE));
+
+		String cardsPlan = queryPlan("select _id from Cards where deck_id = 1 order by order_index, front_page_side");
+
+		assertTrue(cardsPlan, cardsPlan.contains(DatabaseSchema.Indices.CARDS_ORDER));
+	}
+
+	public void testCardsSearch() {
+		migrate(DatabaseSchema.Versions.CARDS_SEARCH);
+
+		assertEquals(5, queryLong("select count(*) from CardsSearch"));
+		assertEquals(getCardId("tres"), queryLong("select docid from CardsSearch where CardsSearch match 'three'"));
+
+		// Cards written after the migration are indexed by triggers
+
+		createLegacyCard(Fixtures.ORDERED_DECK_ID, "gato", "cat", 0);
+
+		assertEquals(getCardId("gato"), queryLong("select docid from CardsSearch where CardsSearch match 'cat'"));
+	}
+
+	public void testChangesJournal() {
+		migrate(DatabaseSchema.Versions.CHANGES_JOURNAL);
+
+		assertEquals(0, queryLong("select count(*) from Changes"));
+
+		createLegacyCard(Fixtures.ORDERED_DECK_ID, "gato", "cat", 0);
+
+		assertEquals(1, queryLong("select count(*) from Changes"));
+		assertEquals(getCardId("gato"), queryLong("select row_id from Changes where table_name = 'Cards'"));
+		assertTrue(DatabaseJournal.at(database).getPosition() > 0);
+	}
+
+	public void testUpgradeSchema() {
+		database.close();
+
+		SQLiteDatabase upgradedDatabase = new DatabaseOpenHelper(getContext(), databaseFile.getAbsolutePath()).getWritableDatabase();
+
+		File createdDatabaseFile = new File(getContext().getCacheDir(), databaseFile.getName() + "-created");
+		SQLiteDatabase createdDatabase = new DatabaseOpenHelper(getContext(), createdDatabaseFile.getAbsolutePath()).getWritableDatabase();
+
+		try {
+			assertEquals(DatabaseSchema.Versions.CURRENT, upgradedDatabase.getVersion());
+
+			assertEquals(getSchemaObjects(createdDatabase), getSchemaObjects(upgradedDatabase));
+			assertEquals(5, DatabaseUtils.queryNumEntries(upgradedDatabase, DatabaseSchema.Tables.CARDS));
+		} finally {
+			upgradedDatabase.close();
+			createdDatabase.close();
+
+			deleteDatabase(createdDatabaseFile);
+		}
+	}
+
+	private void deleteDatabase(File databaseFile) {
+		for (String databaseFileSuffix : new String[] {"", "-journal", "-wal", "-shm"}) {
+			new File(databaseFile.getPath() + databaseFileSuffix).delete();
+		}
+	}
+
+	private void migrate(int databaseVersion) {
+		DatabaseMigrations.at(database).migrate(DatabaseSchema.Versions.LEGACY, databaseVersion);
+	}
+
+	private long getShuffleSeed(long deckId) {
+		return DatabaseUtils.longForQuery(database, "select shuffle_seed from Decks where _id = ?", new String[] {String.valueOf(deckId)});
+	}
+
+	private long getCardId(String frontSideText) {
+		return DatabaseUtils.longForQuery(database, "select _id from Cards where front_page_side = ?", new String[] {frontSideText});
+	}
+
+	private long queryLong(String query) {
+		return DatabaseUtils.longForQuery(database, query, null);
+	}
+
+	private boolean isSchemaObjectAvailable(String type, String name) {
+		return DatabaseUtils.longForQuery(database, "select count(*) from sqlite_master where type = ? and name = ?", new String[] {type, name}) > 0;
+	}
+
+	private String queryPlan(String query) {
+		StringBuilder planBuilder = new StringBuilder();
+
+		Cursor planCursor = database.rawQuery("explain query plan " + query, null);
+
+		try {
+			while (planCursor.moveToNext()) {
+				planBuilder.append(planCursor.getString(planCursor.getColumnCount() - 1)).append('\n');
+			}
+		} finally {
+			planCursor.close();
+		}
+
+		return planBuilder.toString();
+	}
+
+	private Set<String> getSchemaObjects(SQLiteDatabase database) {
+		// Column order may differ after added columns, so objects are compared by type and name
+
+		Set<String> schemaObjects = new HashSet<>();
+
+		Cursor schemaCursor = database.rawQuery("select type, name from sqlite_master where name not like 'sqlite_%' and name <> 'android_metadata'", null);
+
+		try {
+			while (schemaCursor.moveToNext()) {
+				schemaObjects.add(String.format("%s %s", schemaCursor.getString(0), schemaCursor.getString(1)));
+			}
+		} finally {
+			schemaCursor.close();
+		}
+
+		return schemaObjects;
+	}
+}
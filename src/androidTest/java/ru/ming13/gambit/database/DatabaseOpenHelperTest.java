@@ -0,0 +1,166 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ru.ming13.gambit.DatabaseFixtures;
+import ru.ming13.gambit.DatabaseTestContext;
+
+public class DatabaseOpenHelperTest extends AndroidTestCase
+{
+	private static final class Benchmark
+	{
+		private Benchmark() {
+		}
+
+		public static final int CARDS_COUNT = 2000;
+		public static final int PAGE_SIZE = 20;
+		public static final int READS_COUNT = 20;
+
+		public static final long WRITE_DURATION = TimeUnit.SECONDS.toMillis(1);
+	}
+
+	private static final String TAG = "DatabaseOpenHelperTest";
+
+	private DatabaseTestContext databaseContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		// The write-ahead helper works with the default database name, it gets a prefix here
+
+		databaseContext = new DatabaseTestContext(getContext());
+		databaseContext.deleteDatabase(DatabaseSchema.DATABASE_NAME);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		databaseContext.deleteDatabase(DatabaseSchema.DATABASE_NAME);
+
+		super.tearDown();
+	}
+
+	public void testWriteAheadLogging() {
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(databaseContext);
+
+		try {
+			SQLiteDatabase database = databaseHelper.getWritableDatabase();
+
+			assertEquals("wal", DatabaseUtils.stringForQuery(database, "pragma journal_mode", null));
+			assertEquals(DatabaseSchema.Checkpoints.AUTO_PAGES_COUNT, DatabaseUtils.longForQuery(database, "pragma wal_autocheckpoint", null));
+		} finally {
+			databaseHelper.close();
+		}
+	}
+
+	public void testReadLatencyDuringWrite() throws InterruptedException {
+		// Pager pages are read while another thread holds a long write transaction, like a backup import does
+
+		DatabaseOpenHelper writeAheadHelper = new DatabaseOpenHelper(databaseContext);
+		long writeAheadReadLatency = measureReadLatencyDuringWrite(writeAheadHelper.getWritableDatabase());
+		writeAheadHelper.close();
+
+		File rollbackDatabaseFile = new File(getContext().getCacheDir(), "rollback.db");
+		rollbackDatabaseFile.delete();
+
+		DatabaseOpenHelper rollbackHelper = new DatabaseOpenHelper(getContext(), rollbackDatabaseFile.getAbsolutePath());
+		long rollbackReadLatency = measureReadLatencyDuringWrite(rollbackHelper.getWritableDatabase());
+		rollbackHelper.close();
+
+		rollbackDatabaseFile.delete();
+		new File(rollbackDatabaseFile.getPath() + "-journal").delete();
+
+		Log.i(TAG, String.format("Maximum page read latency during a write: %d ms with write-ahead log, %d ms with rollback journal.",
+			writeAheadReadLatency, rollbackReadLatency));
+
+		assertTrue(writeAheadReadLatency < Benchmark.WRITE_DURATION / 2);
+		assertTrue(writeAheadReadLatency < rollbackReadLatency);
+	}
+
+	private long measureReadLatencyDuringWrite(final SQLiteDatabase database) throws InterruptedException {
+		long deckId = DatabaseFixtures.createDeck(database, "Benchmark");
+		DatabaseFixtures.createCards(database, deckId, Benchmark.CARDS_COUNT);
+
+		final CountDownLatch writeStartLatch = new CountDownLatch(1);
+		final CountDownLatch writeFinishLatch = new CountDownLatch(1);
+
+		Thread writeThread = new Thread() {
+			@Override
+			public void run() {
+				database.beginTransaction();
+
+				try {
+					database.execSQL("update Cards set order_index = order_index + 1");
+
+					writeStartLatch.countDown();
+
+					SystemClock.sleep(Benchmark.WRITE_DURATION);
+
+					database.setTransactionSuccessful();
+				} finally {
+					database.endTransaction();
+
+					writeFinishLatch.countDown();
+				}
+			}
+		};
+
+		writeThread.start();
+		writeStartLatch.await();
+
+		long maximumReadLatency = 0;
+
+		for (int readIndex = 0; readIndex < Benchmark.READS_COUNT; readIndex++) {
+			long readStartTime = SystemClock.elapsedRealtime();
+
+			readPage(database, deckId, readIndex * Benchmark.PAGE_SIZE);
+
+			maximumReadLatency = Math.max(maximumReadLatency, SystemClock.elapsedRealtime() - readStartTime);
+		}
+
+		writeFinishLatch.await();
+		writeThread.join();
+
+		return maximumReadLatency;
+	}
+
+	private void readPage(SQLiteDatabase database, long deckId, int pageOffset) {
+		Cursor pageCursor = database.query(DatabaseSchema.Tables.CARDS,
+			new String[] {DatabaseSchema.CardsColumns._ID, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT, DatabaseSchema.CardsColumns.ORDER_INDEX},
+			String.format("%s = ?", DatabaseSchema.CardsColumns.DECK_ID), new String[] {String.valueOf(deckId)},
+			null, null,
+			String.format("%s, %s", DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT),
+			String.format("%d, %d", pageOffset, Benchmark.PAGE_SIZE));
+
+		try {
+			assertEquals(Benchmark.PAGE_SIZE, pageCursor.getCount());
+		} finally {
+			pageCursor.close();
+		}
+	}
+}
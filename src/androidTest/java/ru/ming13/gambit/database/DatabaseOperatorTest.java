@@ -0,0 +1,188 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.database;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ru.ming13.gambit.DatabaseFixtures;
+import ru.ming13.gambit.DatabaseTestContext;
+
+public class DatabaseOperatorTest extends AndroidTestCase
+{
+	private static final class Fixtures
+	{
+		private Fixtures() {
+		}
+
+		public static final int DECKS_COUNT = 20;
+		public static final int DECK_CARDS_COUNT = 50;
+
+		public static final String DECK_TITLE = "Deck %d";
+	}
+
+	private DatabaseTestContext databaseContext;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		databaseContext = new DatabaseTestContext(getContext());
+		databaseContext.deleteDatabase(DatabaseSchema.DATABASE_NAME);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		databaseContext.deleteDatabase(DatabaseSchema.DATABASE_NAME);
+
+		super.tearDown();
+	}
+
+	public void testSnapshotDuringWrites() throws InterruptedException {
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(databaseContext);
+		final SQLiteDatabase database = databaseHelper.getWritableDatabase();
+
+		for (int deckIndex = 0; deckIndex < Fixtures.DECKS_COUNT; deckIndex++) {
+			createDeck(database, deckIndex);
+		}
+
+		// Every deck is written with all of its cards at once, a torn snapshot would have partial decks
+
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		final AtomicInteger writtenDecksCount = new AtomicInteger(Fixtures.DECKS_COUNT);
+
+		Thread writeThread = new Thread() {
+			@Override
+			public void run() {
+				while (writing.get()) {
+					createDeck(database, writtenDecksCount.getAndIncrement());
+				}
+			}
+		};
+
+		writeThread.start();
+
+		ByteArrayOutputStream backupStream = new ByteArrayOutputStream();
+
+		try {
+			DatabaseOperator.of(databaseContext).writeDatabaseContents(backupStream);
+		} finally {
+			writing.set(false);
+			writeThread.join();
+		}
+
+		int decksCountAfterExport = writtenDecksCount.get();
+
+		databaseHelper.close();
+		databaseContext.deleteDatabase(DatabaseSchema.DATABASE_NAME);
+
+		byte[] backupContents = backupStream.toByteArray();
+
+		DatabaseOperator.of(databaseContext).readDatabaseContents(
+			new ByteArrayInputStream(backupContents), backupContents.length, new DatabaseProgressListener() {
+				@Override
+				public void onProgress(long processedRowsCount, long rowsCount, long processedBytesCount, long bytesCount) {
+				}
+			});
+
+		SQLiteDatabase restoredDatabase = new DatabaseOpenHelper(databaseContext).getReadableDatabase();
+
+		try {
+			assertEquals("ok", DatabaseUtils.stringForQuery(restoredDatabase, "pragma integrity_check", null));
+
+			long restoredDecksCount = DatabaseUtils.longForQuery(restoredDatabase,
+				"select count(*) from Decks where title like 'Deck %'", null);
+
+			assertTrue(restoredDecksCount >= Fixtures.DECKS_COUNT);
+			assertTrue(restoredDecksCount <= decksCountAfterExport);
+
+			assertEquals(0, DatabaseUtils.longForQuery(restoredDatabase,
+				"select count(*) from Decks where title like 'Deck %' and (select count(*) from Cards where deck_id = Decks._id) <> " + Fixtures.DECK_CARDS_COUNT, null));
+		} finally {
+			restoredDatabase.close();
+		}
+	}
+
+	public void testChangesDuringWrites() {
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(databaseContext);
+		final SQLiteDatabase database = databaseHelper.getWritableDatabase();
+
+		for (int deckIndex = 0; deckIndex < Fixtures.DECKS_COUNT; deckIndex++) {
+			createDeck(database, deckIndex);
+		}
+
+		ByteArrayOutputStream backupStream = new ByteArrayOutputStream();
+
+		DatabaseOperator.of(databaseContext).writeDatabaseContents(backupStream);
+
+		long backupPosition = DatabaseOperator.of(databaseContext).readDatabaseContentsPosition(
+			new ByteArrayInputStream(backupStream.toByteArray()));
+
+		createDeck(database, Fixtures.DECKS_COUNT);
+
+		// A deck is written from the same thread while changes are streamed,
+		// it would fail on the locked database if the stream held the write lock
+
+		final AtomicBoolean written = new AtomicBoolean(false);
+
+		OutputStream changesStream = new FilterOutputStream(backupStream) {
+			@Override
+			public void write(int data) throws IOException {
+				if (!written.getAndSet(true)) {
+					createDeck(database, Fixtures.DECKS_COUNT + 1);
+				}
+
+				super.write(data);
+			}
+		};
+
+		try {
+			assertTrue(DatabaseOperator.of(databaseContext).writeDatabaseChanges(backupPosition, changesStream));
+			assertTrue(written.get());
+
+			// The deck written meanwhile goes to the next segment
+
+			assertTrue(DatabaseOperator.of(databaseContext).isDatabaseChanged(
+				DatabaseOperator.of(databaseContext).readDatabaseContentsPosition(new ByteArrayInputStream(backupStream.toByteArray()))));
+		} finally {
+			databaseHelper.close();
+		}
+	}
+
+	private void createDeck(SQLiteDatabase database, int deckIndex) {
+		database.beginTransaction();
+
+		try {
+			long deckId = DatabaseFixtures.createDeck(database, String.format(Fixtures.DECK_TITLE, deckIndex));
+
+			DatabaseFixtures.createCards(database, deckId, Fixtures.DECK_CARDS_COUNT);
+
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.importing;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.ming13.gambit.model.Card;
+
+public class CardsTextReaderTest extends TestCase
+{
+	public void testHeaders() throws IOException {
+		List<Card> cards = readCards("#separator:semicolon\n#html:false\nhola;hello\n#hashtag;number sign\n");
+
+		assertEquals(2, cards.size());
+
+		assertEquals("hola", cards.get(0).getFrontSideText());
+		assertEquals("#hashtag", cards.get(1).getFrontSideText());
+		assertEquals("number sign", cards.get(1).getBackSideText());
+	}
+
+	public void testQuotedFields() throws IOException {
+		List<Card> cards = readCards("\"hola, amigo\",\"hello\nfriend\"\n\"\"\"quoted\"\"\",quoted\n");
+
+		assertEquals(2, cards.size());
+
+		assertEquals("hola, amigo", cards.get(0).getFrontSideText());
+		assertEquals("hello\nfriend", cards.get(0).getBackSideText());
+		assertEquals("\"quoted\"", cards.get(1).getFrontSideText());
+	}
+
+	public void testUnterminatedQuote() throws IOException {
+		// The broken record is dropped, the rest of the file is still read
+
+		StringBuilder text = new StringBuilder("\"broken,record\n");
+
+		for (int cardIndex = 0; cardIndex < 200; cardIndex++) {
+			text.append(String.format("Front %d,Back %d\n", cardIndex, cardIndex));
+		}
+
+		List<Card> cards = readCards(text.toString());
+
+		assertEquals(200, cards.size());
+
+		assertEquals("Front 0", cards.get(0).getFrontSideText());
+		assertEquals("Back 199", cards.get(199).getBackSideText());
+	}
+
+	private List<Card> readCards(String text) throws IOException {
+		List<Card> cards = new ArrayList<>();
+
+		CardsTextReader cardsReader = CardsTextReader.of(new ByteArrayInputStream(text.getBytes("UTF-8")));
+
+		try {
+			Card card;
+
+			while ((card = cardsReader.readCard()) != null) {
+				cards.add(card);
+			}
+		} finally {
+			cardsReader.close();
+		}
+
+		return cards;
+	}
+}
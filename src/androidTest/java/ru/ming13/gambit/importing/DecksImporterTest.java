@@ -0,0 +1,385 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.importing;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.ProviderTestCase2;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import ru.ming13.gambit.provider.GambitContract;
+import ru.ming13.gambit.provider.GambitProvider;
+
+public class DecksImporterTest extends ProviderTestCase2<GambitProvider>
+{
+	private static final class Collections
+	{
+		private Collections() {
+		}
+
+		public static final String LEGACY = "collection.anki2";
+		public static final String NEWER = "collection.anki21";
+		public static final String COMPRESSED = "collection.anki21b";
+	}
+
+	private static final String SEPARATOR = "\u001f";
+
+	public DecksImporterTest() {
+		super(GambitProvider.class, GambitContract.AUTHORITY);
+	}
+
+	public void testLegacyCollection() throws IOException {
+		File collectionFile = createCollectionFile();
+		SQLiteDatabase collectionDatabase = openCollection(collectionFile);
+
+		createLegacyDecks(collectionDatabase, "{\"1\": {\"name\": \"Default\"}, \"2\": {\"name\": \"Spanish\"}}");
+		createNote(collectionDatabase, 1, 2, "hola", "hello");
+		createNote(collectionDatabase, 2, 2, "adiós", "goodbye");
+		createNote(collectionDatabase, 3, 1, "front", "back");
+
+		collectionDatabase.close();
+
+		assertEquals(3, importPackage(buildPackage(Collections.LEGACY, collectionFile)));
+
+		assertEquals(2, getDeckCardsCount("Spanish"));
+		assertEquals(1, getDeckCardsCount("Default"));
+	}
+
+	public void testDecksTableCollection() throws IOException {
+		File collectionFile = createCollectionFile();
+		SQLiteDatabase collectionDatabase = openCollection(collectionFile);
+
+		createDecks(collectionDatabase);
+		createDeck(collectionDatabase, 1, "Languages" + SEPARATOR + "Spanish");
+		createNote(collectionDatabase, 1, 1, "hola", "hello");
+
+		collectionDatabase.close();
+
+		assertEquals(1, importPackage(buildPackage(Collections.NEWER, collectionFile)));
+
+		assertEquals(1, getDeckCardsCount("Languages::Spanish"));
+	}
+
+	public void testNewerCollectionWins() throws IOException {
+		File stubCollectionFile = createCollectionFile();
+		SQLiteDatabase stubCollectionDatabase = openCollection(stubCollectionFile);
+
+		createLegacyDecks(stubCollectionDatabase, "{\"1\": {\"name\": \"Default\"}}");
+		createNote(stubCollectionDatabase, 1, 1, "Please update", "to the latest Anki version");
+
+		stubCollectionDatabase.close();
+
+		File collectionFile = createCollectionFile();
+		SQLiteDatabase collectionDatabase = openCollection(collectionFile);
+
+		createDecks(collectionDatabase);
+		createDeck(collectionDatabase, 1, "Spanish");
+		createNote(collectionDatabase, 1, 1, "hola", "hello");
+
+		collectionDatabase.close();
+
+		assertEquals(1, importPackage(buildPackage(Collections.LEGACY, stubCollectionFile, Collections.NEWER, collectionFile)));
+
+		assertEquals(1, getDeckCardsCount("Spanish"));
+		assertEquals(-1, getDeckId("Default"));
+	}
+
+	public void testCompressedCollection() throws IOException {
+		File stubCollectionFile = createCollectionFile();
+		SQLiteDatabase stubCollectionDatabase = openCollection(stubCollectionFile);
+
+		createLegacyDecks(stubCollectionDatabase, "{\"1\": {\"name\": \"Default\"}}");
+		createNote(stubCollectionDatabase, 1, 1, "Please update", "to the latest Anki version");
+
+		stubCollectionDatabase.close();
+
+		// Only the entry name matters, zstd frames start with this magic number
+
+		File compressedCollectionFile = createCollectionFile();
+		FileUtils.writeByteArrayToFile(compressedCollectionFile, new byte[] {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD});
+
+		try {
+			importPackage(buildPackage(Collections.LEGACY, stubCollectionFile, Collections.COMPRESSED, compressedCollectionFile));
+
+			fail("Compressed collection should not be imported");
+		} catch (UnsupportedPackageException e) {
+			assertEquals(-1, getDeckId("Default"));
+		}
+	}
+
+	public void testNotPackage() throws IOException {
+		int decksCount = getDecksCount();
+
+		try {
+			importPackage("Not a zip archive".getBytes());
+
+			fail("Plain file should not be imported");
+		} catch (InvalidPackageException e) {
+			assertEquals(decksCount, getDecksCount());
+		}
+	}
+
+	public void testPackageWithoutCollection() throws IOException {
+		int decksCount = getDecksCount();
+
+		try {
+			importPackage(buildPackage());
+
+			fail("Package without a collection should not be imported");
+		} catch (InvalidPackageException e) {
+			assertEquals(decksCount, getDecksCount());
+		}
+	}
+
+	public void testTruncatedPackage() throws IOException {
+		File collectionFile = createCollectionFile();
+		SQLiteDatabase collectionDatabase = openCollection(collectionFile);
+
+		createLegacyDecks(collectionDatabase, "{\"1\": {\"name\": \"Default\"}}");
+		createNote(collectionDatabase, 1, 1, "hola", "hello");
+
+		collectionDatabase.close();
+
+		byte[] packageContents = buildPackage(Collections.LEGACY, collectionFile);
+
+		try {
+			importPackage(Arrays.copyOf(packageContents, packageContents.length / 2));
+
+			fail("Truncated package should not be imported");
+		} catch (IOException e) {
+			assertEquals(-1, getDeckId("Default"));
+		}
+	}
+
+	public void testUnreadableCollection() throws IOException {
+		File collectionFile = createCollectionFile();
+		FileUtils.writeStringToFile(collectionFile, "Not a database");
+
+		int decksCount = getDecksCount();
+
+		try {
+			importPackage(buildPackage(Collections.LEGACY, collectionFile));
+
+			fail("Unreadable collection should not be imported");
+		} catch (InvalidPackageException e) {
+			assertEquals(decksCount, getDecksCount());
+		}
+	}
+
+	public void testNotesFields() throws IOException {
+		File collectionFile = createCollectionFile();
+		SQLiteDatabase collectionDatabase = openCollection(collectionFile);
+
+		createLegacyDecks(collectionDatabase, "{\"1\": {\"name\": \"Default\"}}");
+		createNote(collectionDatabase, 1, 1, "<b>hola</b> [sound:hola.mp3]", "hello" + SEPARATOR + "extra");
+		createNote(collectionDatabase, 2, 1, "[sound:empty.mp3]", "empty");
+		createNote(collectionDatabase, 3, 1, "single field");
+
+		collectionDatabase.close();
+
+		assertEquals(1, importPackage(buildPackage(Collections.LEGACY, collectionFile)));
+
+		Cursor cardsCursor = getMockContentResolver().query(
+			GambitContract.Cards.getCardsUri(getDeckId("Default")),
+			new String[] {GambitContract.Cards.FRONT_SIDE_TEXT, GambitContract.Cards.BACK_SIDE_TEXT},
+			null, null, null);
+
+		try {
+			assertTrue(cardsCursor.moveToFirst());
+
+			assertEquals("hola", cardsCursor.getString(0));
+			assertEquals("hello", cardsCursor.getString(1));
+		} finally {
+			cardsCursor.close();
+		}
+	}
+
+	private File createCollectionFile() throws IOException {
+		File collectionFile = File.createTempFile("collection", null, getContext().getCacheDir());
+		collectionFile.delete();
+
+		return collectionFile;
+	}
+
+	private SQLiteDatabase openCollection(File collectionFile) {
+		SQLiteDatabase collectionDatabase = SQLiteDatabase.openOrCreateDatabase(collectionFile, null);
+
+		collectionDatabase.execSQL("create table col (id integer primary key, decks text not null)");
+		collectionDatabase.execSQL("create table notes (id integer primary key, flds text not null)");
+		collectionDatabase.execSQL("create table cards (id integer primary key, nid integer not null, did integer not null)");
+
+		return collectionDatabase;
+	}
+
+	private void createLegacyDecks(SQLiteDatabase collectionDatabase, String decks) {
+		collectionDatabase.execSQL("insert into col (id, decks) values (1, ?)", new Object[] {decks});
+	}
+
+	private void createDecks(SQLiteDatabase collectionDatabase) {
+		collectionDatabase.execSQL("insert into col (id, decks) values (1, '')");
+		collectionDatabase.execSQL("create table decks (id integer primary key, name text not null)");
+	}
+
+	private void createDeck(SQLiteDatabase collectionDatabase, long deckId, String deckName) {
+		collectionDatabase.execSQL("insert into decks (id, name) values (?, ?)", new Object[] {deckId, deckName});
+	}
+
+	private void createNote(SQLiteDatabase collectionDatabase, long noteId, long deckId, String... noteFields) {
+		collectionDatabase.execSQL("insert into notes (id, flds) values (?, ?)", new Object[] {noteId, join(noteFields)});
+		collectionDatabase.execSQL("insert into cards (nid, did) values (?, ?)", new Object[] {noteId, deckId});
+	}
+
+	private String join(String... noteFields) {
+		StringBuilder noteFieldsBuilder = new StringBuilder();
+
+		for (String noteField : noteFields) {
+			if (noteFieldsBuilder.length() > 0) {
+				noteFieldsBuilder.append(SEPARATOR);
+			}
+
+			noteFieldsBuilder.append(noteField);
+		}
+
+		return noteFieldsBuilder.toString();
+	}
+
+	private byte[] buildPackage(Object... packageEntries) throws IOException {
+		// Entries go as name and file pairs, in the order they are written to the archive
+
+		ByteArrayOutputStream packageStream = new ByteArrayOutputStream();
+		ZipOutputStream packageZipStream = new ZipOutputStream(packageStream);
+
+		try {
+			for (int entryPosition = 0; entryPosition < packageEntries.length; entryPosition += 2) {
+				File entryFile = (File) packageEntries[entryPosition + 1];
+
+				packageZipStream.putNextEntry(new ZipEntry((String) packageEntries[entryPosition]));
+				FileUtils.copyFile(entryFile, packageZipStream);
+				packageZipStream.closeEntry();
+
+				entryFile.delete();
+			}
+
+			packageZipStream.putNextEntry(new ZipEntry("media"));
+			packageZipStream.write("{}".getBytes());
+			packageZipStream.closeEntry();
+		} finally {
+			packageZipStream.close();
+		}
+
+		return packageStream.toByteArray();
+	}
+
+	private long importPackage(byte[] packageContents) throws IOException {
+		final List<Long> progressCounts = new ArrayList<>();
+
+		long importedCardsCount = DecksImporter.of(getImportContext()).importDecks(
+			new ByteArrayInputStream(packageContents), packageContents.length, new CardsImportListener() {
+				@Override
+				public void onProgress(long importedCardsCount, long processedCount, long count) {
+					progressCounts.add(processedCount);
+				}
+
+				@Override
+				public boolean isImportCancelled() {
+					return false;
+				}
+			});
+
+		assertFalse(progressCounts.isEmpty());
+
+		return importedCardsCount;
+	}
+
+	private Context getImportContext() {
+		// The importer goes to the application context, it should stay with the isolated provider
+
+		return new ContextWrapper(getMockContext()) {
+			@Override
+			public Context getApplicationContext() {
+				return this;
+			}
+
+			@Override
+			public File getCacheDir() {
+				return getContext().getCacheDir();
+			}
+		};
+	}
+
+	private long getDeckId(String deckTitle) {
+		Cursor deckCursor = getMockContentResolver().query(
+			GambitContract.Decks.getDecksUri(),
+			new String[] {GambitContract.Decks._ID},
+			String.format("%s = ?", GambitContract.Decks.TITLE),
+			new String[] {deckTitle},
+			null);
+
+		try {
+			if (deckCursor.moveToFirst()) {
+				return deckCursor.getLong(0);
+			}
+
+			return -1;
+		} finally {
+			deckCursor.close();
+		}
+	}
+
+	private int getDecksCount() {
+		Cursor decksCursor = getMockContentResolver().query(
+			GambitContract.Decks.getDecksUri(),
+			new String[] {GambitContract.Decks._ID},
+			null, null, null);
+
+		try {
+			return decksCursor.getCount();
+		} finally {
+			decksCursor.close();
+		}
+	}
+
+	private int getDeckCardsCount(String deckTitle) {
+		long deckId = getDeckId(deckTitle);
+
+		assertTrue(deckId >= 0);
+
+		Cursor cardsCursor = getMockContentResolver().query(
+			GambitContract.Cards.getCardsUri(deckId),
+			new String[] {GambitContract.Cards._ID},
+			null, null, null);
+
+		try {
+			return cardsCursor.getCount();
+		} finally {
+			cardsCursor.close();
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.provider;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.test.ProviderTestCase2;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class CardsPagesTest extends ProviderTestCase2<GambitProvider>
+{
+	private static final class Benchmark
+	{
+		private Benchmark() {
+		}
+
+		public static final int CARDS_COUNT = 5000;
+		public static final int PAGE_SIZE = 20;
+		public static final int QUERIES_COUNT = 20;
+	}
+
+	private static final String TAG = "CardsPagesTest";
+
+	private long deckId;
+
+	public CardsPagesTest() {
+		super(GambitProvider.class, GambitContract.AUTHORITY);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+
+		// Every card keeps the default order index, as in a deck that was never shuffled
+
+		ContentValues deckValues = new ContentValues();
+		deckValues.put(GambitContract.Decks.TITLE, "Benchmark");
+
+		deckId = GambitContract.Decks.getDeckId(getMockContentResolver().insert(GambitContract.Decks.getDecksUri(), deckValues));
+
+		ContentValues[] cardsValues = new ContentValues[Benchmark.CARDS_COUNT];
+
+		for (int cardIndex = 0; cardIndex < Benchmark.CARDS_COUNT; cardIndex++) {
+			// Front sides repeat, so pages are split by ids as well
+
+			cardsValues[cardIndex] = new ContentValues();
+			cardsValues[cardIndex].put(GambitContract.Cards.FRONT_SIDE_TEXT, String.format("Front %04d", cardIndex / 2));
+			cardsValues[cardIndex].put(GambitContract.Cards.BACK_SIDE_TEXT, String.format("Back %04d", cardIndex));
+		}
+
+		getMockContentResolver().bulkInsert(GambitContract.Cards.getCardsImportUri(deckId), cardsValues);
+	}
+
+	public void testPagesAfter() {
+		List<Long> cardIds = queryCardIds(GambitContract.Cards.getCardsUri(deckId, Benchmark.CARDS_COUNT, 0));
+		List<Long> pagedCardIds = new ArrayList<Long>();
+
+		Cursor pageCursor = getMockContentResolver().query(
+			GambitContract.Cards.getCardsUri(deckId, Benchmark.PAGE_SIZE, 0),
+			GambitContract.Cards.Projections.PAGER, null, null, null);
+
+		while (pageCursor.moveToLast()) {
+			pagedCardIds.addAll(readCardIds(pageCursor));
+
+			Uri pageUri = GambitContract.Cards.getCardsAfterUri(deckId,
+				pageCursor.getLong(pageCursor.getColumnIndex(GambitContract.Cards.ORDER_INDEX)),
+				pageCursor.getString(pageCursor.getColumnIndex(GambitContract.Cards.FRONT_SIDE_TEXT)),
+				pageCursor.getLong(pageCursor.getColumnIndex(GambitContract.Cards._ID)),
+				Benchmark.PAGE_SIZE);
+
+			pageCursor.close();
+			pageCursor = getMockContentResolver().query(pageUri, GambitContract.Cards.Projections.PAGER, null, null, null);
+		}
+
+		pageCursor.close();
+
+		assertEquals(cardIds, pagedCardIds);
+	}
+
+	public void testPagesBefore() {
+		List<Long> cardIds = queryCardIds(GambitContract.Cards.getCardsUri(deckId, Benchmark.CARDS_COUNT, 0));
+		List<Long> pagedCardIds = new ArrayList<Long>();
+
+		Cursor pageCursor = getMockContentResolver().query(
+			GambitContract.Cards.getCardsUri(deckId, Benchmark.PAGE_SIZE, Benchmark.CARDS_COUNT - Benchmark.PAGE_SIZE),
+			GambitContract.Cards.Projections.PAGER, null, null, null);
+
+		while (pageCursor.moveToFirst()) {
+			pagedCardIds.addAll(0, readCardIds(pageCursor));
+
+			Uri pageUri = GambitContract.Cards.getCardsBeforeUri(deckId,
+				pageCursor.getLong(pageCursor.getColumnIndex(GambitContract.Cards.ORDER_INDEX)),
+				pageCursor.getString(pageCursor.getColumnIndex(GambitContract.Cards.FRONT_SIDE_TEXT)),
+				pageCursor.getLong(pageCursor.getColumnIndex(GambitContract.Cards._ID)),
+				Benchmark.PAGE_SIZE);
+
+			pageCursor.close();
+			pageCursor = getMockContentResolver().query(pageUri, GambitContract.Cards.Projections.PAGER, null, null, null);
+		}
+
+		pageCursor.close();
+
+		assertEquals(cardIds, pagedCardIds);
+	}
+
+	public void testPagesLatency() {
+		// Keyset pages should cost the same at any position, offset pages grow with it
+
+		List<Long> cardIds = queryCardIds(GambitContract.Cards.getCardsUri(deckId, Benchmark.CARDS_COUNT, 0));
+
+		long firstPageTime = measurePageAfter(cardIds.get(0));
+		long lastPageTime = measurePageAfter(cardIds.get(Benchmark.CARDS_COUNT - Benchmark.PAGE_SIZE - 1));
+
+		Log.i(TAG, String.format("Page query on %d cards with the same order index: %.3f ms at the start, %.3f ms at the end.",
+			Benchmark.CARDS_COUNT,
+			firstPageTime / 1e6,
+			lastPageTime / 1e6));
+
+		assertTrue(lastPageTime < firstPageTime * 3);
+	}
+
+	private List<Long> queryCardIds(Uri cardsUri) {
+		Cursor cardsCursor = getMockContentResolver().query(cardsUri, GambitContract.Cards.Projections.PAGER, null, null, null);
+
+		try {
+			return readCardIds(cardsCursor);
+		} finally {
+			cardsCursor.close();
+		}
+	}
+
+	private List<Long> readCardIds(Cursor cardsCursor) {
+		List<Long> cardIds = new ArrayList<Long>();
+
+		cardsCursor.moveToPosition(-1);
+
+		while (cardsCursor.moveToNext()) {
+			cardIds.add(cardsCursor.getLong(cardsCursor.getColumnIndex(GambitContract.Cards._ID)));
+		}
+
+		return cardIds;
+	}
+
+	private long measurePageAfter(long cardId) {
+		Cursor cardCursor = getMockContentResolver().query(
+			GambitContract.Cards.getCardUri(deckId, cardId),
+			GambitContract.Cards.Projections.PAGER, null, null, null);
+
+		Uri pageUri;
+
+		try {
+			assertTrue(cardCursor.moveToFirst());
+
+			pageUri = GambitContract.Cards.getCardsAfterUri(deckId,
+				cardCursor.getLong(cardCursor.getColumnIndex(GambitContract.Cards.ORDER_INDEX)),
+				cardCursor.getString(cardCursor.getColumnIndex(GambitContract.Cards.FRONT_SIDE_TEXT)),
+				cardId,
+				Benchmark.PAGE_SIZE);
+		} finally {
+			cardCursor.close();
+		}
+
+		// The median time is taken, so a single slow query does not decide the result
+
+		long[] queryTimes = new long[Benchmark.QUERIES_COUNT];
+
+		for (int queryIndex = 0; queryIndex < Benchmark.QUERIES_COUNT; queryIndex++) {
+			long queryStartTime = System.nanoTime();
+
+			Cursor pageCursor = getMockContentResolver().query(pageUri, GambitContract.Cards.Projections.PAGER, null, null, null);
+
+			try {
+				assertEquals(Benchmark.PAGE_SIZE, pageCursor.getCount());
+			} finally {
+				pageCursor.close();
+			}
+
+			queryTimes[queryIndex] = System.nanoTime() - queryStartTime;
+		}
+
+		Arrays.sort(queryTimes);
+
+		return queryTimes[Benchmark.QUERIES_COUNT / 2];
+	}
+}
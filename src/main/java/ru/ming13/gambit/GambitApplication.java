@@ -19,6 +19,7 @@ package ru.ming13.gambit;
 import android.app.Application;
 import android.os.StrictMode;
 
+import ru.ming13.gambit.backup.BackupScheduler;
 import ru.ming13.gambit.util.Android;
 
 public class GambitApplication extends Application
@@ -30,9 +31,15 @@ public class GambitApplication extends Application
 		if (Android.isDebugging()) {
 			setUpDetecting();
 		}
+
+		setUpBackups();
 	}
 
 	private void setUpDetecting() {
 		StrictMode.enableDefaults();
 	}
+
+	private void setUpBackups() {
+		BackupScheduler.of(this).scheduleBackups();
+	}
 }
@@ -22,6 +22,8 @@ import android.support.v4.app.NavUtils;
 import android.support.v7.app.ActionBarActivity;
 import android.support.v7.widget.Toolbar;
 import android.view.MenuItem;
+import android.widget.ProgressBar;
+import android.widget.Toast;
 
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
@@ -30,6 +32,7 @@ import com.google.android.gms.drive.Drive;
 import com.google.android.gms.drive.DriveApi;
 import com.google.android.gms.drive.DriveContents;
 import com.google.android.gms.drive.DriveId;
+import com.google.android.gms.drive.DriveResource;
 import com.google.android.gms.drive.OpenFileActivityBuilder;
 import com.squareup.otto.Subscribe;
 
@@ -39,9 +42,13 @@ import butterknife.OnClick;
 import ru.ming13.gambit.R;
 import ru.ming13.gambit.backup.BackupFilePicker;
 import ru.ming13.gambit.backup.BackupOperator;
+import ru.ming13.gambit.backup.BackupPreferences;
+import ru.ming13.gambit.backup.DriveBackupTransport;
 import ru.ming13.gambit.bus.BackupFinishedEvent;
+import ru.ming13.gambit.bus.BackupImportedEvent;
+import ru.ming13.gambit.bus.BackupProgressEvent;
 import ru.ming13.gambit.bus.BusProvider;
-import ru.ming13.gambit.provider.GambitContract;
+import ru.ming13.gambit.database.DatabaseMergeReport;
 import ru.ming13.gambit.task.BackupExportingTask;
 import ru.ming13.gambit.task.BackupImportingTask;
 import ru.ming13.gambit.util.GoogleServices;
@@ -60,6 +67,9 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 	@InjectView(R.id.toolbar)
 	Toolbar toolbar;
 
+	@InjectView(R.id.progress)
+	ProgressBar progressBar;
+
 	private GoogleApiClient googleApiClient;
 	private BackupAction backupAction;
 
@@ -129,7 +139,7 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 
 		switch (backupAction) {
 			case EXPORT:
-				startBackupFileCreation();
+				startBackupFileUpdating();
 				break;
 
 			case IMPORT:
@@ -142,6 +152,8 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 	}
 
 	private void showProgress() {
+		progressBar.setIndeterminate(true);
+
 		ViewDirector.of(this, R.id.animator).show(R.id.progress);
 	}
 
@@ -149,6 +161,37 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 		Drive.DriveApi.requestSync(googleApiClient).setResultCallback(null);
 	}
 
+	private void startBackupFileUpdating() {
+		// The backup exported before gets only the changes made since, a new file is created otherwise
+
+		DriveId backupFileId = BackupPreferences.of(this).getDriveBackupFileId();
+
+		if (backupFileId == null) {
+			startBackupFileCreation();
+		} else {
+			startBackupFileChecking(backupFileId);
+		}
+	}
+
+	private void startBackupFileChecking(final DriveId backupFileId) {
+		Drive.DriveApi.getFile(googleApiClient, backupFileId).getMetadata(googleApiClient).setResultCallback(new ResultCallback<DriveResource.MetadataResult>() {
+			@Override
+			public void onResult(DriveResource.MetadataResult metadataResult) {
+				if (isBackupFileAvailable(metadataResult)) {
+					startBackupExporting(backupFileId);
+				} else {
+					BackupPreferences.of(BackupActivity.this).resetDriveBackupFileId();
+
+					startBackupFileCreation();
+				}
+			}
+		});
+	}
+
+	private boolean isBackupFileAvailable(DriveResource.MetadataResult metadataResult) {
+		return metadataResult.getStatus().isSuccess() && !metadataResult.getMetadata().isTrashed();
+	}
+
 	private void startBackupFileCreation() {
 		Drive.DriveApi.newDriveContents(googleApiClient).setResultCallback(this);
 	}
@@ -181,6 +224,7 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 
 		if (requestCode == Intents.Requests.DRIVE_FILE_CREATE) {
 			DriveId backupFileId = data.getParcelableExtra(OpenFileActivityBuilder.EXTRA_RESPONSE_DRIVE_ID);
+			BackupPreferences.of(this).setDriveBackupFileId(backupFileId);
 			startBackupExporting(backupFileId);
 		}
 
@@ -195,8 +239,6 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 
 		hideProgress();
 
-		showUpdatedContents();
-
 		tearDownGoogleApiConnection();
 	}
 
@@ -204,10 +246,6 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 		ViewDirector.of(this, R.id.animator).show(R.id.layout_buttons);
 	}
 
-	private void showUpdatedContents() {
-		getContentResolver().notifyChange(GambitContract.Decks.getDecksUri(), null);
-	}
-
 	private void tearDownGoogleApiConnection() {
 		if (isGoogleApiClientConnected()) {
 			googleApiClient.disconnect();
@@ -219,11 +257,15 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 	}
 
 	private void startBackupExporting(DriveId backupFileId) {
-		BackupExportingTask.execute(BackupOperator.with(this, googleApiClient), backupFileId);
+		BackupExportingTask.execute(getBackupOperator(backupFileId));
 	}
 
 	private void startBackupImporting(DriveId backupFileId) {
-		BackupImportingTask.execute(BackupOperator.with(this, googleApiClient), backupFileId);
+		BackupImportingTask.execute(getBackupOperator(backupFileId));
+	}
+
+	private BackupOperator getBackupOperator(DriveId backupFileId) {
+		return BackupOperator.with(this, DriveBackupTransport.of(googleApiClient, backupFileId));
 	}
 
 	@Subscribe
@@ -231,6 +273,41 @@ public class BackupActivity extends ActionBarActivity implements ResultCallback<
 		finishBackupAction();
 	}
 
+	@Subscribe
+	public void onBackupProgress(BackupProgressEvent event) {
+		progressBar.setIndeterminate(false);
+		progressBar.setProgress(getBackupProgress(event));
+	}
+
+	private int getBackupProgress(BackupProgressEvent event) {
+		// Rows are known once the backup header is read, bytes are known only for some files
+
+		if (event.getRowsCount() > 0) {
+			return (int) (progressBar.getMax() * event.getProcessedRowsCount() / event.getRowsCount());
+		}
+
+		if (event.getBytesCount() > 0) {
+			return (int) (progressBar.getMax() * event.getProcessedBytesCount() / event.getBytesCount());
+		}
+
+		return 0;
+	}
+
+	@Subscribe
+	public void onBackupImported(BackupImportedEvent event) {
+		finishBackupAction();
+
+		showBackupImportReport(event.getMergeReport());
+	}
+
+	private void showBackupImportReport(DatabaseMergeReport mergeReport) {
+		String message = getString(R.string.message_backup_imported,
+			mergeReport.getInsertedRowsCount(), mergeReport.getUpdatedRowsCount(),
+			mergeReport.getDeletedRowsCount(), mergeReport.getSkippedRowsCount());
+
+		Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+	}
+
 	@Override
 	public void onConnectionSuspended(int cause) {
 	}
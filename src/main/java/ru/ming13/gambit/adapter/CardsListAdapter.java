@@ -17,41 +17,49 @@
 package ru.ming13.gambit.adapter;
 
 import android.content.Context;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
 import android.support.annotation.NonNull;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CursorAdapter;
 import android.widget.TextView;
 
-import com.venmo.cursor.IterableCursorAdapter;
-
 import butterknife.ButterKnife;
 import butterknife.InjectView;
 import ru.ming13.gambit.R;
+import ru.ming13.gambit.cursor.CardRow;
+import ru.ming13.gambit.cursor.CardsCursor;
 import ru.ming13.gambit.model.Card;
 
-public class CardsListAdapter extends IterableCursorAdapter<Card>
+public class CardsListAdapter extends CursorAdapter
 {
 	static final class CardViewHolder
 	{
 		@InjectView(R.id.text)
 		public TextView cardText;
 
+		public final CardRow card = new CardRow();
+		public char[] cardTextBuffer = new char[0];
+
 		public CardViewHolder(View cardView) {
 			ButterKnife.inject(this, cardView);
 		}
 	}
 
 	private final LayoutInflater layoutInflater;
+	private final char[] cardTextSeparator;
 
 	public CardsListAdapter(@NonNull Context context) {
 		super(context, null, 0);
 
 		this.layoutInflater = LayoutInflater.from(context);
+		this.cardTextSeparator = context.getString(R.string.separator_card_list_item).toCharArray();
 	}
 
 	@Override
-	public View newView(Context context, Card card, ViewGroup cardViewContainer) {
+	public View newView(Context context, Cursor cardsCursor, ViewGroup cardViewContainer) {
 		View cardView = layoutInflater.inflate(R.layout.view_card_list, cardViewContainer, false);
 
 		cardView.setTag(new CardViewHolder(cardView));
@@ -60,9 +68,42 @@ public class CardsListAdapter extends IterableCursorAdapter<Card>
 	}
 
 	@Override
-	public void bindView(View cardView, Context context, Card card) {
+	public void bindView(View cardView, Context context, Cursor cardsCursor) {
+		// Rows are copied to the view own buffers, scrolling does not allocate cards and strings
+
 		CardViewHolder cardViewHolder = (CardViewHolder) cardView.getTag();
 
-		cardViewHolder.cardText.setText(context.getString(R.string.mask_card_list_item, card.getFrontSideText(), card.getBackSideText()));
+		((CardsCursor) cardsCursor).fill(cardViewHolder.card);
+
+		int cardTextLength = buildCardText(cardViewHolder);
+
+		cardViewHolder.cardText.setText(cardViewHolder.cardTextBuffer, 0, cardTextLength);
+	}
+
+	private int buildCardText(CardViewHolder cardViewHolder) {
+		CharArrayBuffer cardFrontSideText = cardViewHolder.card.getFrontSideText();
+		CharArrayBuffer cardBackSideText = cardViewHolder.card.getBackSideText();
+
+		int cardTextLength = cardFrontSideText.sizeCopied + cardTextSeparator.length + cardBackSideText.sizeCopied;
+
+		if (cardViewHolder.cardTextBuffer.length < cardTextLength) {
+			cardViewHolder.cardTextBuffer = new char[cardTextLength];
+		}
+
+		char[] cardText = cardViewHolder.cardTextBuffer;
+
+		System.arraycopy(cardFrontSideText.data, 0, cardText, 0, cardFrontSideText.sizeCopied);
+		System.arraycopy(cardTextSeparator, 0, cardText, cardFrontSideText.sizeCopied, cardTextSeparator.length);
+		System.arraycopy(cardBackSideText.data, 0, cardText, cardFrontSideText.sizeCopied + cardTextSeparator.length, cardBackSideText.sizeCopied);
+
+		return cardTextLength;
+	}
+
+	@Override
+	public Card getItem(int cardPosition) {
+		CardsCursor cardsCursor = (CardsCursor) getCursor();
+		cardsCursor.moveToPosition(cardPosition);
+
+		return cardsCursor.peek();
 	}
 }
@@ -25,29 +25,42 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
 import butterknife.ButterKnife;
 import butterknife.InjectView;
 import butterknife.OnClick;
 import ru.ming13.gambit.R;
+import ru.ming13.gambit.cursor.CardBackSides;
+import ru.ming13.gambit.cursor.CardsLoadingListener;
 import ru.ming13.gambit.model.Card;
+import ru.ming13.gambit.util.Android;
+import ru.ming13.gambit.util.Animations;
 
-public class CardsPagerAdapter extends PagerAdapter
+public class CardsPagerAdapter extends PagerAdapter implements CardsLoadingListener
 {
+	private static final int RECYCLED_CARD_VIEWS_COUNT = 3;
+
 	static final class CardViewHolder
 	{
+		@InjectView(R.id.container_card)
+		public View cardContainer;
+
 		@InjectView(R.id.text)
 		public TextView cardText;
 
 		public Card card;
-		public CardSide cardSide;
+		public CardBackSides cardBackSides;
+		public int cardPosition;
 
-		public CardViewHolder(View cardView, Card card, CardSide cardSide) {
-			this.card = card;
-			this.cardSide = cardSide;
+		public CardSide cardSide;
+		public CardSide defaultCardSide;
 
+		public CardViewHolder(View cardView) {
 			ButterKnife.inject(this, cardView);
 		}
 
@@ -55,10 +68,16 @@ public class CardsPagerAdapter extends PagerAdapter
 		public void setUpCardSide() {
 			this.cardSide = cardSide.flip();
 
+			bindCardText();
+		}
+
+		public void bindCardText() {
 			if (cardSide == CardSide.FRONT) {
 				cardText.setText(card.getFrontSideText());
+
+				cardBackSides.prefetchBackSideText(card);
 			} else {
-				cardText.setText(card.getBackSideText());
+				cardText.setText(cardBackSides.getBackSideText(card));
 			}
 		}
 	}
@@ -77,37 +96,73 @@ public class CardsPagerAdapter extends PagerAdapter
 	}
 
 	private final LayoutInflater layoutInflater;
+	private final Deque<View> recycledCardViews;
+	private final List<View> cardViews;
+
+	private View primaryCardView;
 
 	private CardSide defaultCardSide;
 
 	private List<Card> cards;
+	private CardBackSides cardBackSides;
 
 	public CardsPagerAdapter(@NonNull Context context) {
 		this.layoutInflater = LayoutInflater.from(context);
+		this.recycledCardViews = new ArrayDeque<>();
+		this.cardViews = new ArrayList<>();
 
 		this.defaultCardSide = CardSide.FRONT;
 
 		this.cards = Collections.emptyList();
 	}
 
-	public void refill(@NonNull List<Card> cards) {
+	public void refill(@NonNull List<Card> cards, @NonNull CardBackSides cardBackSides) {
 		this.cards = cards;
+		this.cardBackSides = cardBackSides;
+
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public void onCardsLoaded() {
+		// Blank cards are replaced with loaded ones while checking item positions
 
 		notifyDataSetChanged();
 	}
 
-	public void switchDefaultCardSide() {
+	public void flipCards() {
 		this.defaultCardSide = defaultCardSide.flip();
+
+		// Live pages are rebound in place, the pager does not have to rebuild them to swap text.
+		// Only the visible page is animated, pages off the screen would just take frames from it.
+
+		for (View cardView : cardViews) {
+			CardViewHolder cardViewHolder = (CardViewHolder) cardView.getTag();
+
+			cardViewHolder.cardSide = defaultCardSide;
+			cardViewHolder.defaultCardSide = defaultCardSide;
+
+			cardViewHolder.bindCardText();
+
+			if (isCardViewAnimationRequired(cardView)) {
+				Animations.flip(cardViewHolder.cardContainer);
+			}
+		}
+	}
+
+	private boolean isCardViewAnimationRequired(View cardView) {
+		return cardView.equals(primaryCardView) && Android.isAnimatorEnabled(layoutInflater.getContext());
 	}
 
 	@Override
 	public Object instantiateItem(ViewGroup cardsPagerContainer, int cardPosition) {
 		ViewPager cardsPager = getCardsPager(cardsPagerContainer);
 
-		View cardView = newCardView(cardsPager, cardPosition);
-		bindCardView(cardView);
+		View cardView = obtainCardView(cardsPager);
+		bindCardView(cardView, cardPosition);
 
 		cardsPager.addView(cardView);
+		cardViews.add(cardView);
 
 		return cardView;
 	}
@@ -116,27 +171,56 @@ public class CardsPagerAdapter extends PagerAdapter
 		return (ViewPager) cardsPagerContainer;
 	}
 
-	private View newCardView(ViewPager cardsPager, int cardPosition) {
+	private View obtainCardView(ViewPager cardsPager) {
+		if (!recycledCardViews.isEmpty()) {
+			return recycledCardViews.pop();
+		}
+
+		return newCardView(cardsPager);
+	}
+
+	private View newCardView(ViewPager cardsPager) {
 		View cardView = layoutInflater.inflate(R.layout.view_card_pager, cardsPager, false);
 
-		cardView.setTag(new CardViewHolder(cardView, cards.get(cardPosition), defaultCardSide));
+		cardView.setTag(new CardViewHolder(cardView));
 
 		return cardView;
 	}
 
-	private void bindCardView(View cardView) {
+	private void bindCardView(View cardView, int cardPosition) {
 		CardViewHolder cardViewHolder = (CardViewHolder) cardView.getTag();
 
-		if (cardViewHolder.cardSide == CardSide.FRONT) {
-			cardViewHolder.cardText.setText(cardViewHolder.card.getFrontSideText());
-		} else {
-			cardViewHolder.cardText.setText(cardViewHolder.card.getBackSideText());
-		}
+		cardViewHolder.card = cards.get(cardPosition);
+		cardViewHolder.cardBackSides = cardBackSides;
+		cardViewHolder.cardPosition = cardPosition;
+
+		cardViewHolder.cardSide = defaultCardSide;
+		cardViewHolder.defaultCardSide = defaultCardSide;
+
+		cardViewHolder.bindCardText();
 	}
 
 	@Override
 	public void destroyItem(ViewGroup cardsPagerContainer, int cardPosition, Object cardViewObject) {
-		getCardsPager(cardsPagerContainer).removeView((View) cardViewObject);
+		View cardView = (View) cardViewObject;
+
+		getCardsPager(cardsPagerContainer).removeView(cardView);
+		cardViews.remove(cardView);
+
+		if (cardView.equals(primaryCardView)) {
+			primaryCardView = null;
+		}
+
+		if (recycledCardViews.size() < RECYCLED_CARD_VIEWS_COUNT) {
+			recycledCardViews.push(cardView);
+		}
+	}
+
+	@Override
+	public void setPrimaryItem(ViewGroup cardsPagerContainer, int cardPosition, Object cardViewObject) {
+		super.setPrimaryItem(cardsPagerContainer, cardPosition, cardViewObject);
+
+		this.primaryCardView = (View) cardViewObject;
 	}
 
 	@Override
@@ -145,8 +229,32 @@ public class CardsPagerAdapter extends PagerAdapter
 	}
 
 	@Override
-	public int getItemPosition(Object object) {
-		return PagerAdapter.POSITION_NONE;
+	public int getItemPosition(Object cardViewObject) {
+		CardViewHolder cardViewHolder = (CardViewHolder) ((View) cardViewObject).getTag();
+
+		if (cardViewHolder.cardPosition >= getCount()) {
+			return PagerAdapter.POSITION_NONE;
+		}
+
+		Card card = cards.get(cardViewHolder.cardPosition);
+
+		if (!card.equals(cardViewHolder.card)) {
+			return PagerAdapter.POSITION_NONE;
+		}
+
+		// The same card stays in place, only its contents and side are refreshed
+
+		cardViewHolder.card = card;
+		cardViewHolder.cardBackSides = cardBackSides;
+
+		if (cardViewHolder.defaultCardSide != defaultCardSide) {
+			cardViewHolder.cardSide = defaultCardSide;
+			cardViewHolder.defaultCardSide = defaultCardSide;
+		}
+
+		cardViewHolder.bindCardText();
+
+		return PagerAdapter.POSITION_UNCHANGED;
 	}
 
 	@Override
@@ -17,26 +17,31 @@
 package ru.ming13.gambit.adapter;
 
 import android.content.Context;
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
 import android.support.annotation.NonNull;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CursorAdapter;
 import android.widget.TextView;
 
-import com.venmo.cursor.IterableCursorAdapter;
-
 import butterknife.ButterKnife;
 import butterknife.InjectView;
 import ru.ming13.gambit.R;
+import ru.ming13.gambit.cursor.DeckRow;
+import ru.ming13.gambit.cursor.DecksCursor;
 import ru.ming13.gambit.model.Deck;
 
-public class DecksListAdapter extends IterableCursorAdapter<Deck>
+public class DecksListAdapter extends CursorAdapter
 {
 	static final class DeckViewHolder
 	{
 		@InjectView(R.id.text)
 		public TextView deckText;
 
+		public final DeckRow deck = new DeckRow();
+
 		public DeckViewHolder(View deckView) {
 			ButterKnife.inject(this, deckView);
 		}
@@ -51,7 +56,7 @@ public class DecksListAdapter extends IterableCursorAdapter<Deck>
 	}
 
 	@Override
-	public View newView(Context context, Deck deck, ViewGroup deckViewContainer) {
+	public View newView(Context context, Cursor decksCursor, ViewGroup deckViewContainer) {
 		View deckView = layoutInflater.inflate(R.layout.view_list_item, deckViewContainer, false);
 
 		deckView.setTag(new DeckViewHolder(deckView));
@@ -60,9 +65,23 @@ public class DecksListAdapter extends IterableCursorAdapter<Deck>
 	}
 
 	@Override
-	public void bindView(View deckView, Context context, Deck deck) {
+	public void bindView(View deckView, Context context, Cursor decksCursor) {
+		// Titles are copied to the view own buffer, scrolling does not allocate decks and strings
+
 		DeckViewHolder deckViewHolder = (DeckViewHolder) deckView.getTag();
 
-		deckViewHolder.deckText.setText(deck.getTitle());
+		((DecksCursor) decksCursor).fill(deckViewHolder.deck);
+
+		CharArrayBuffer deckTitle = deckViewHolder.deck.getTitle();
+
+		deckViewHolder.deckText.setText(deckTitle.data, 0, deckTitle.sizeCopied);
+	}
+
+	@Override
+	public Deck getItem(int deckPosition) {
+		DecksCursor decksCursor = (DecksCursor) getCursor();
+		decksCursor.moveToPosition(deckPosition);
+
+		return decksCursor.peek();
 	}
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.support.annotation.NonNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+final class BackupExportStream extends FilterOutputStream
+{
+	private final BackupExportListener exportListener;
+
+	public BackupExportStream(@NonNull OutputStream outputStream, @NonNull BackupExportListener exportListener) {
+		super(outputStream);
+
+		this.exportListener = exportListener;
+	}
+
+	@Override
+	public void write(int oneByte) throws IOException {
+		checkExportCancelled();
+
+		out.write(oneByte);
+	}
+
+	@Override
+	public void write(@NonNull byte[] buffer, int offset, int length) throws IOException {
+		checkExportCancelled();
+
+		out.write(buffer, offset, length);
+	}
+
+	private void checkExportCancelled() throws IOException {
+		// Failing the write lets the transport cut off what was written so far
+
+		if (exportListener.isExportCancelled()) {
+			throw new InterruptedIOException("Backup export is cancelled");
+		}
+	}
+}
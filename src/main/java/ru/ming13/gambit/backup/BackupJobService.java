@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.os.AsyncTask;
+import android.os.Build;
+
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class BackupJobService extends JobService
+{
+	private BackupRotatingTask backupRotatingTask;
+
+	@Override
+	public boolean onStartJob(JobParameters jobParameters) {
+		backupRotatingTask = new BackupRotatingTask(this, jobParameters);
+		backupRotatingTask.execute();
+
+		return true;
+	}
+
+	@Override
+	public boolean onStopJob(JobParameters jobParameters) {
+		// Writing stops at the next chunk and is cut off, the job is retried later
+
+		backupRotatingTask.cancel(false);
+
+		return true;
+	}
+
+	private static final class BackupRotatingTask extends AsyncTask<Void, Void, Boolean> implements BackupExportListener
+	{
+		private final JobService jobService;
+		private final JobParameters jobParameters;
+
+		public BackupRotatingTask(JobService jobService, JobParameters jobParameters) {
+			this.jobService = jobService;
+			this.jobParameters = jobParameters;
+		}
+
+		@Override
+		protected Boolean doInBackground(Void... parameters) {
+			// A full disk or a broken file should not crash the app from an idle job
+
+			try {
+				BackupRotator.of(jobService).rotateBackups(this);
+
+				return true;
+			} catch (RuntimeException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public boolean isExportCancelled() {
+			return isCancelled();
+		}
+
+		@Override
+		protected void onPostExecute(Boolean backupRotated) {
+			super.onPostExecute(backupRotated);
+
+			jobService.jobFinished(jobParameters, !backupRotated);
+		}
+	}
+}
@@ -19,48 +19,143 @@ package ru.ming13.gambit.backup;
 import android.content.Context;
 import android.support.annotation.NonNull;
 
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.drive.Drive;
-import com.google.android.gms.drive.DriveContents;
-import com.google.android.gms.drive.DriveFile;
-import com.google.android.gms.drive.DriveId;
-
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import ru.ming13.gambit.database.DatabaseMergeReport;
 import ru.ming13.gambit.database.DatabaseOperator;
+import ru.ming13.gambit.database.DatabaseProgressListener;
+import ru.ming13.gambit.provider.GambitContract;
 
 public final class BackupOperator
 {
 	private final Context context;
-	private final GoogleApiClient driveApiClient;
+	private final BackupTransport backupTransport;
 
-	public static BackupOperator with(@NonNull Context context, @NonNull GoogleApiClient driveApiClient) {
-		return new BackupOperator(context, driveApiClient);
+	public static BackupOperator with(@NonNull Context context, @NonNull BackupTransport backupTransport) {
+		return new BackupOperator(context, backupTransport);
 	}
 
-	private BackupOperator(Context context, GoogleApiClient driveApiClient) {
+	private BackupOperator(Context context, BackupTransport backupTransport) {
 		this.context = context.getApplicationContext();
-		this.driveApiClient = driveApiClient;
+		this.backupTransport = backupTransport;
+	}
+
+	public void exportBackup() {
+		exportBackup(new BackupExportListener() {
+			@Override
+			public boolean isExportCancelled() {
+				return false;
+			}
+		});
+	}
+
+	public void exportBackup(@NonNull BackupExportListener exportListener) {
+		// Changes are appended to an existing backup, a full base is written only when there is nothing to extend
+
+		long backupPosition = findBackupPosition();
+
+		if (backupPosition == DatabaseOperator.UNKNOWN_POSITION) {
+			exportBackupBase(exportListener);
+		} else {
+			exportBackupChanges(backupPosition, exportListener);
+		}
+	}
+
+	private long findBackupPosition() {
+		try {
+			if (backupTransport.getBackupLength() == 0) {
+				return DatabaseOperator.UNKNOWN_POSITION;
+			}
+
+			return readBackupPosition();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void exportBackupBase(BackupExportListener exportListener) {
+		try {
+			OutputStream backupStream = new BackupExportStream(backupTransport.startBackupWriting(), exportListener);
+
+			try {
+				DatabaseOperator.of(context).writeDatabaseContents(backupStream);
+			} catch (RuntimeException e) {
+				backupTransport.abortBackupWriting();
+
+				throw e;
+			}
+
+			backupTransport.finishBackupWriting();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
-	public void exportBackup(@NonNull DriveId backupFileId) {
-		DriveFile backupFile = Drive.DriveApi.getFile(driveApiClient, backupFileId);
-		DriveContents backupFileContents = backupFile.open(driveApiClient, DriveFile.MODE_WRITE_ONLY, null).await().getDriveContents();
+	private void exportBackupChanges(long backupPosition, BackupExportListener exportListener) {
+		DatabaseOperator databaseOperator = DatabaseOperator.of(context);
+
+		if (!databaseOperator.isDatabaseChanged(backupPosition)) {
+			return;
+		}
+
+		try {
+			OutputStream backupChangesStream = new BackupExportStream(backupTransport.startBackupAppending(), exportListener);
 
-		OutputStream backupFileStream = backupFileContents.getOutputStream();
-		DatabaseOperator.of(context).writeDatabaseContents(backupFileStream);
+			try {
+				databaseOperator.writeDatabaseChanges(backupPosition, backupChangesStream);
+			} catch (RuntimeException e) {
+				backupTransport.abortBackupWriting();
+
+				throw e;
+			}
+
+			backupTransport.finishBackupWriting();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-		backupFileContents.commit(driveApiClient, null).await();
+	public boolean isBackupOutdated() {
+		try {
+			return DatabaseOperator.of(context).isDatabaseChanged(readBackupPosition());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
-	public void importBackup(@NonNull DriveId backupFileId) {
-		DriveFile backupFile = Drive.DriveApi.getFile(driveApiClient, backupFileId);
-		DriveContents backupFileContents = backupFile.open(driveApiClient, DriveFile.MODE_READ_ONLY, null).await().getDriveContents();
+	private long readBackupPosition() throws IOException {
+		InputStream backupStream = backupTransport.startBackupReading();
 
-		InputStream backupFileStream = backupFileContents.getInputStream();
-		DatabaseOperator.of(context).readDatabaseContents(backupFileStream);
+		try {
+			return DatabaseOperator.of(context).readDatabaseContentsPosition(backupStream);
+		} finally {
+			backupTransport.finishBackupReading();
+		}
+	}
+
+	public DatabaseMergeReport importBackup(@NonNull DatabaseProgressListener progressListener) {
+		// Backups are merged past the provider, its cached results are dropped even if the merge fails halfway
+
+		try {
+			long backupLength = backupTransport.getBackupLength();
+
+			InputStream backupStream = backupTransport.startBackupReading();
+
+			try {
+				return DatabaseOperator.of(context).readDatabaseContents(backupStream, backupLength, progressListener);
+			} finally {
+				backupTransport.finishBackupReading();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			refreshContents();
+		}
+	}
 
-		backupFileContents.discard(driveApiClient);
+	private void refreshContents() {
+		context.getContentResolver().call(GambitContract.Decks.getDecksUri(), GambitContract.Methods.REFRESH_CONTENTS, null, null);
 	}
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.NonNull;
+
+import com.google.android.gms.drive.DriveId;
+
+public final class BackupPreferences
+{
+	private static final class Keys
+	{
+		private Keys() {
+		}
+
+		public static final String DRIVE_BACKUP_FILE_ID = "drive_backup_file_id";
+	}
+
+	private static final String PREFERENCES_NAME = "backup";
+
+	private final SharedPreferences preferences;
+
+	public static BackupPreferences of(@NonNull Context context) {
+		return new BackupPreferences(context);
+	}
+
+	private BackupPreferences(Context context) {
+		this.preferences = context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+	}
+
+	public DriveId getDriveBackupFileId() {
+		String backupFileId = preferences.getString(Keys.DRIVE_BACKUP_FILE_ID, null);
+
+		if (backupFileId == null) {
+			return null;
+		}
+
+		return DriveId.decodeFromString(backupFileId);
+	}
+
+	public void setDriveBackupFileId(@NonNull DriveId backupFileId) {
+		// Only files created by this app are remembered, changes are appended to nothing else
+
+		preferences.edit().putString(Keys.DRIVE_BACKUP_FILE_ID, backupFileId.encodeToString()).apply();
+	}
+
+	public void resetDriveBackupFileId() {
+		preferences.edit().remove(Keys.DRIVE_BACKUP_FILE_ID).apply();
+	}
+}
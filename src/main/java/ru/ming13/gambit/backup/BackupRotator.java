@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public final class BackupRotator
+{
+	private static final class Files
+	{
+		private Files() {
+		}
+
+		public static final String DIRECTORY = "backups";
+		public static final String EXTENSION = ".backup";
+	}
+
+	private static final int BACKUPS_COUNT = 3;
+	private static final long BACKUP_EXTENDING_PERIOD = TimeUnit.DAYS.toMillis(7);
+
+	private final Context context;
+
+	public static BackupRotator of(@NonNull Context context) {
+		return new BackupRotator(context);
+	}
+
+	private BackupRotator(Context context) {
+		this.context = context.getApplicationContext();
+	}
+
+	public boolean rotateBackups(@NonNull BackupExportListener exportListener) {
+		List<File> backupFiles = getBackupFiles();
+
+		if (!backupFiles.isEmpty()) {
+			File latestBackupFile = backupFiles.get(backupFiles.size() - 1);
+
+			if (!isBackupOutdated(latestBackupFile)) {
+				return false;
+			}
+
+			// The latest backup takes changes for a while, then a new base starts the next one
+
+			if (isBackupExtendable(latestBackupFile)) {
+				BackupOperator.with(context, FileBackupTransport.of(latestBackupFile)).exportBackup(exportListener);
+
+				return true;
+			}
+		}
+
+		File backupFile = getBackupFile();
+
+		BackupOperator.with(context, FileBackupTransport.of(backupFile)).exportBackup(exportListener);
+
+		backupFiles.add(backupFile);
+
+		deleteBackupFiles(backupFiles.subList(0, Math.max(0, backupFiles.size() - BACKUPS_COUNT)));
+
+		return true;
+	}
+
+	private List<File> getBackupFiles() {
+		// File names are creation timestamps, so the name order is the creation order
+
+		File[] backupFiles = getBackupsDirectory().listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File directory, String fileName) {
+				return fileName.endsWith(Files.EXTENSION);
+			}
+		});
+
+		if (backupFiles == null) {
+			return new ArrayList<File>();
+		}
+
+		Arrays.sort(backupFiles);
+
+		return new ArrayList<File>(Arrays.asList(backupFiles));
+	}
+
+	private File getBackupsDirectory() {
+		File backupsDirectory = new File(context.getFilesDir(), Files.DIRECTORY);
+
+		if (!backupsDirectory.exists() && !backupsDirectory.mkdirs()) {
+			throw new RuntimeException(String.format("Unable to create %s", backupsDirectory));
+		}
+
+		return backupsDirectory;
+	}
+
+	private boolean isBackupOutdated(File backupFile) {
+		return BackupOperator.with(context, FileBackupTransport.of(backupFile)).isBackupOutdated();
+	}
+
+	private boolean isBackupExtendable(File backupFile) {
+		return System.currentTimeMillis() - getBackupTime(backupFile) < BACKUP_EXTENDING_PERIOD;
+	}
+
+	private long getBackupTime(File backupFile) {
+		String backupFileName = backupFile.getName();
+
+		try {
+			return Long.parseLong(backupFileName.substring(0, backupFileName.length() - Files.EXTENSION.length()));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private File getBackupFile() {
+		return new File(getBackupsDirectory(), String.format("%d%s", System.currentTimeMillis(), Files.EXTENSION));
+	}
+
+	private void deleteBackupFiles(List<File> backupFiles) {
+		for (File backupFile : backupFiles) {
+			if (!backupFile.delete()) {
+				throw new RuntimeException(String.format("Unable to delete %s", backupFile));
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.backup;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import ru.ming13.gambit.util.Android;
+
+public final class BackupScheduler
+{
+	private static final int JOB_ID = 1;
+
+	private static final long JOB_PERIOD = TimeUnit.DAYS.toMillis(1);
+
+	private final Context context;
+
+	public static BackupScheduler of(@NonNull Context context) {
+		return new BackupScheduler(context);
+	}
+
+	private BackupScheduler(Context context) {
+		this.context = context.getApplicationContext();
+	}
+
+	public void scheduleBackups() {
+		if (!Android.isJobSchedulerAvailable()) {
+			return;
+		}
+
+		scheduleBackupsJob();
+	}
+
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	private void scheduleBackupsJob() {
+		// Rescheduling resets the period, so the already scheduled job is left intact
+
+		JobScheduler jobScheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+
+		for (JobInfo job : jobScheduler.getAllPendingJobs()) {
+			if (job.getId() == JOB_ID) {
+				return;
+			}
+		}
+
+		jobScheduler.schedule(buildBackupsJob());
+	}
+
+	@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+	private JobInfo buildBackupsJob() {
+		return new JobInfo.Builder(JOB_ID, new ComponentName(context, BackupJobService.class))
+			.setRequiresCharging(true)
+			.setRequiresDeviceIdle(true)
+			.setPeriodic(JOB_PERIOD)
+			.setPersisted(true)
+			.build();
+	}
+}
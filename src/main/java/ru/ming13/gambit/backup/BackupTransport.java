@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface BackupTransport
+{
+	long getBackupLength() throws IOException;
+
+	InputStream startBackupReading() throws IOException;
+
+	void finishBackupReading() throws IOException;
+
+	OutputStream startBackupWriting() throws IOException;
+
+	OutputStream startBackupAppending() throws IOException;
+
+	void finishBackupWriting() throws IOException;
+
+	void abortBackupWriting() throws IOException;
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.backup;
+
+import android.support.annotation.NonNull;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.drive.Drive;
+import com.google.android.gms.drive.DriveApi;
+import com.google.android.gms.drive.DriveContents;
+import com.google.android.gms.drive.DriveFile;
+import com.google.android.gms.drive.DriveId;
+import com.google.android.gms.drive.DriveResource;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+public final class DriveBackupTransport implements BackupTransport
+{
+	private final GoogleApiClient driveApiClient;
+	private final DriveId backupFileId;
+
+	private DriveContents backupFileContents;
+
+	public static DriveBackupTransport of(@NonNull GoogleApiClient driveApiClient, @NonNull DriveId backupFileId) {
+		return new DriveBackupTransport(driveApiClient, backupFileId);
+	}
+
+	private DriveBackupTransport(GoogleApiClient driveApiClient, DriveId backupFileId) {
+		this.driveApiClient = driveApiClient;
+		this.backupFileId = backupFileId;
+	}
+
+	private DriveFile getBackupFile() {
+		return Drive.DriveApi.getFile(driveApiClient, backupFileId);
+	}
+
+	@Override
+	public long getBackupLength() throws IOException {
+		DriveResource.MetadataResult metadataResult = getBackupFile().getMetadata(driveApiClient).await();
+
+		if (!metadataResult.getStatus().isSuccess()) {
+			throw new IOException(metadataResult.getStatus().toString());
+		}
+
+		return metadataResult.getMetadata().getFileSize();
+	}
+
+	@Override
+	public InputStream startBackupReading() throws IOException {
+		backupFileContents = openBackupFileContents(DriveFile.MODE_READ_ONLY);
+
+		return backupFileContents.getInputStream();
+	}
+
+	private DriveContents openBackupFileContents(int backupFileMode) throws IOException {
+		DriveApi.DriveContentsResult contentsResult = getBackupFile().open(driveApiClient, backupFileMode, null).await();
+
+		if (!contentsResult.getStatus().isSuccess()) {
+			throw new IOException(contentsResult.getStatus().toString());
+		}
+
+		return contentsResult.getDriveContents();
+	}
+
+	@Override
+	public void finishBackupReading() {
+		backupFileContents.discard(driveApiClient);
+	}
+
+	@Override
+	public OutputStream startBackupWriting() throws IOException {
+		backupFileContents = openBackupFileContents(DriveFile.MODE_WRITE_ONLY);
+
+		return backupFileContents.getOutputStream();
+	}
+
+	@Override
+	public OutputStream startBackupAppending() throws IOException {
+		// Only read-write contents keep existing bytes, the descriptor is moved to their end
+
+		backupFileContents = openBackupFileContents(DriveFile.MODE_READ_WRITE);
+
+		FileOutputStream backupFileStream = new FileOutputStream(backupFileContents.getParcelFileDescriptor().getFileDescriptor());
+
+		FileChannel backupFileChannel = backupFileStream.getChannel();
+		backupFileChannel.position(backupFileChannel.size());
+
+		return backupFileStream;
+	}
+
+	@Override
+	public void finishBackupWriting() throws IOException {
+		Status commitStatus = backupFileContents.commit(driveApiClient, null).await();
+
+		if (!commitStatus.isSuccess()) {
+			throw new IOException(commitStatus.toString());
+		}
+	}
+
+	@Override
+	public void abortBackupWriting() {
+		backupFileContents.discard(driveApiClient);
+	}
+}
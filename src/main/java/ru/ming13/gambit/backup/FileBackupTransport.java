@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.backup;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+public final class FileBackupTransport implements BackupTransport
+{
+	private static final String WRITING_FILE_SUFFIX = ".part";
+
+	private final File backupFile;
+
+	private File writingFile;
+
+	private FileChannel backupFileChannel;
+	private OutputStream backupFileStream;
+	private long backupFileLength;
+
+	public static FileBackupTransport of(@NonNull File backupFile) {
+		return new FileBackupTransport(backupFile);
+	}
+
+	private FileBackupTransport(File backupFile) {
+		this.backupFile = backupFile.getAbsoluteFile();
+	}
+
+	@Override
+	public long getBackupLength() {
+		return backupFile.length();
+	}
+
+	@Override
+	public InputStream startBackupReading() throws IOException {
+		backupFileChannel = new FileInputStream(backupFile).getChannel();
+
+		return Channels.newInputStream(backupFileChannel);
+	}
+
+	@Override
+	public void finishBackupReading() throws IOException {
+		backupFileChannel.close();
+	}
+
+	@Override
+	public OutputStream startBackupWriting() throws IOException {
+		// Written aside and renamed when finished, so the previous backup stays whole until then
+
+		writingFile = new File(backupFile.getPath() + WRITING_FILE_SUFFIX);
+
+		return startBackupWriting(writingFile, false);
+	}
+
+	private OutputStream startBackupWriting(File file, boolean append) throws IOException {
+		backupFileChannel = new FileOutputStream(file, append).getChannel();
+		backupFileLength = backupFileChannel.size();
+
+		backupFileStream = new BufferedOutputStream(Channels.newOutputStream(backupFileChannel));
+
+		return backupFileStream;
+	}
+
+	@Override
+	public OutputStream startBackupAppending() throws IOException {
+		writingFile = null;
+
+		return startBackupWriting(backupFile, true);
+	}
+
+	@Override
+	public void finishBackupWriting() throws IOException {
+		backupFileStream.flush();
+
+		backupFileChannel.force(false);
+		backupFileChannel.close();
+
+		if ((writingFile != null) && !writingFile.renameTo(backupFile)) {
+			throw new IOException(String.format("Unable to rename %s", writingFile));
+		}
+	}
+
+	@Override
+	public void abortBackupWriting() throws IOException {
+		// Appended bytes are cut off, a partial segment would break the whole backup
+
+		if (backupFileChannel.isOpen()) {
+			backupFileChannel.truncate(backupFileLength);
+			backupFileChannel.close();
+		}
+
+		if ((writingFile != null) && !writingFile.delete()) {
+			throw new IOException(String.format("Unable to delete %s", writingFile));
+		}
+	}
+}
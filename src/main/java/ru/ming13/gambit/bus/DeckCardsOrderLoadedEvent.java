@@ -24,12 +24,18 @@ public class DeckCardsOrderLoadedEvent implements BusEvent
 	}
 
 	private final CardsOrder cardsOrder;
+	private final long cardsShuffleSeed;
 
-	public DeckCardsOrderLoadedEvent(CardsOrder cardsOrder) {
+	public DeckCardsOrderLoadedEvent(CardsOrder cardsOrder, long cardsShuffleSeed) {
 		this.cardsOrder = cardsOrder;
+		this.cardsShuffleSeed = cardsShuffleSeed;
 	}
 
 	public CardsOrder getCardsOrder() {
 		return cardsOrder;
 	}
+
+	public long getCardsShuffleSeed() {
+		return cardsShuffleSeed;
+	}
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.cursor;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import ru.ming13.gambit.model.Card;
+import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.provider.GambitContract;
+
+public class CardBackSides
+{
+	private static final int CACHE_SIZE = 16;
+
+	private final class BackSideLoadingTask extends AsyncTask<Void, Void, String>
+	{
+		private final Card card;
+
+		public BackSideLoadingTask(Card card) {
+			this.card = card;
+		}
+
+		@Override
+		protected String doInBackground(Void... parameters) {
+			return loadBackSideText(card);
+		}
+
+		@Override
+		protected void onPostExecute(String backSideText) {
+			super.onPostExecute(backSideText);
+
+			finishBackSideLoading(card, backSideText);
+		}
+	}
+
+	private final ContentResolver contentResolver;
+	private final Deck deck;
+
+	private final CardsLoadingListener loadingListener;
+
+	private final LruCache<Long, String> backSideTexts;
+	private final Set<Long> loadingBackSides;
+
+	public static CardBackSides of(@NonNull ContentResolver contentResolver, @NonNull Deck deck, @NonNull CardsLoadingListener loadingListener) {
+		return new CardBackSides(contentResolver, deck, loadingListener);
+	}
+
+	private CardBackSides(ContentResolver contentResolver, Deck deck, CardsLoadingListener loadingListener) {
+		this.contentResolver = contentResolver;
+		this.deck = deck;
+
+		this.loadingListener = loadingListener;
+
+		this.backSideTexts = new LruCache<>(CACHE_SIZE);
+		this.loadingBackSides = new HashSet<>();
+	}
+
+	public String getBackSideText(@NonNull Card card) {
+		// Sides are queried off the main thread, a blank text stands in until its side arrives
+
+		String backSideText = backSideTexts.get(card.getId());
+
+		if (backSideText == null) {
+			prefetchBackSideText(card);
+
+			return CursorDefaults.STRING;
+		}
+
+		return backSideText;
+	}
+
+	public void prefetchBackSideText(@NonNull Card card) {
+		// Pages are loaded without back sides, a side is fetched once its front is shown
+
+		if (isBlankCard(card) || loadingBackSides.contains(card.getId()) || (backSideTexts.get(card.getId()) != null)) {
+			return;
+		}
+
+		loadingBackSides.add(card.getId());
+
+		new BackSideLoadingTask(card).execute();
+	}
+
+	private boolean isBlankCard(Card card) {
+		return card.getId() == CursorDefaults.LONG;
+	}
+
+	private String loadBackSideText(Card card) {
+		Cursor cardCursor = contentResolver.query(
+			GambitContract.Cards.getCardUri(deck.getId(), card.getId()),
+			GambitContract.Cards.Projections.BACK_SIDE,
+			null, null, null);
+
+		try {
+			if (cardCursor.moveToFirst()) {
+				return cardCursor.getString(cardCursor.getColumnIndex(GambitContract.Cards.BACK_SIDE_TEXT));
+			}
+
+			return CursorDefaults.STRING;
+		} finally {
+			cardCursor.close();
+		}
+	}
+
+	private void finishBackSideLoading(Card card, String backSideText) {
+		loadingBackSides.remove(card.getId());
+
+		backSideTexts.put(card.getId(), backSideText);
+
+		loadingListener.onCardsLoaded();
+	}
+}
@@ -19,23 +19,44 @@ package ru.ming13.gambit.cursor;
 import android.database.Cursor;
 import android.support.annotation.NonNull;
 
-import com.venmo.cursor.IterableCursorWrapper;
-
 import ru.ming13.gambit.model.Card;
 import ru.ming13.gambit.provider.GambitContract;
 
-public class CardsCursor extends IterableCursorWrapper<Card>
+public class CardsCursor extends TypedCursorWrapper<Card>
 {
+	private final int idColumn;
+	private final int frontSideTextColumn;
+	private final int backSideTextColumn;
+	private final int orderIndexColumn;
+
 	public CardsCursor(@NonNull Cursor cursor) {
 		super(cursor);
+
+		// Column positions do not change between rows, so they are looked up once
+
+		this.idColumn = getColumnIndex(GambitContract.Cards._ID);
+		this.frontSideTextColumn = getColumnIndex(GambitContract.Cards.FRONT_SIDE_TEXT);
+		this.backSideTextColumn = getColumnIndex(GambitContract.Cards.BACK_SIDE_TEXT);
+		this.orderIndexColumn = getColumnIndex(GambitContract.Cards.ORDER_INDEX);
 	}
 
 	@Override
 	public Card peek() {
-		long cardId = getLong(GambitContract.Cards._ID, CursorDefaults.LONG);
-		String cardFrontSideText = getString(GambitContract.Cards.FRONT_SIDE_TEXT, CursorDefaults.STRING);
-		String cardBackSideText = getString(GambitContract.Cards.BACK_SIDE_TEXT, CursorDefaults.STRING);
+		long cardId = getLong(idColumn, CursorDefaults.LONG);
+		String cardFrontSideText = getString(frontSideTextColumn, CursorDefaults.STRING);
+		String cardBackSideText = getString(backSideTextColumn, CursorDefaults.STRING);
 
 		return new Card(cardId, cardFrontSideText, cardBackSideText);
 	}
+
+	public void fill(@NonNull CardRow cardRow) {
+		cardRow.setId(getLong(idColumn, CursorDefaults.LONG));
+
+		copyString(frontSideTextColumn, cardRow.getFrontSideText());
+		copyString(backSideTextColumn, cardRow.getBackSideText());
+	}
+
+	public long getOrderIndex() {
+		return getLong(orderIndexColumn, CursorDefaults.LONG);
+	}
 }
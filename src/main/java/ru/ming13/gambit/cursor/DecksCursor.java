@@ -19,23 +19,40 @@ package ru.ming13.gambit.cursor;
 import android.database.Cursor;
 import android.support.annotation.NonNull;
 
-import com.venmo.cursor.IterableCursorWrapper;
-
 import ru.ming13.gambit.model.Deck;
 import ru.ming13.gambit.provider.GambitContract;
 
-public class DecksCursor extends IterableCursorWrapper<Deck>
+public class DecksCursor extends TypedCursorWrapper<Deck>
 {
+	private final int idColumn;
+	private final int titleColumn;
+	private final int currentCardIndexColumn;
+	private final int shuffleSeedColumn;
+
 	public DecksCursor(@NonNull Cursor cursor) {
 		super(cursor);
+
+		// Column positions do not change between rows, so they are looked up once
+
+		this.idColumn = getColumnIndex(GambitContract.Decks._ID);
+		this.titleColumn = getColumnIndex(GambitContract.Decks.TITLE);
+		this.currentCardIndexColumn = getColumnIndex(GambitContract.Decks.CURRENT_CARD_INDEX);
+		this.shuffleSeedColumn = getColumnIndex(GambitContract.Decks.SHUFFLE_SEED);
 	}
 
 	@Override
 	public Deck peek() {
-		long deckId = getLong(GambitContract.Decks._ID, CursorDefaults.LONG);
-		String deckTitle = getString(GambitContract.Decks.TITLE, CursorDefaults.STRING);
-		int deckCurrentCardPosition = getInteger(GambitContract.Decks.CURRENT_CARD_INDEX, CursorDefaults.INT);
+		long deckId = getLong(idColumn, CursorDefaults.LONG);
+		String deckTitle = getString(titleColumn, CursorDefaults.STRING);
+		int deckCurrentCardPosition = getInteger(currentCardIndexColumn, CursorDefaults.INT);
+		long deckShuffleSeed = getLong(shuffleSeedColumn, CursorDefaults.LONG);
+
+		return new Deck(deckId, deckTitle, deckCurrentCardPosition, deckShuffleSeed);
+	}
+
+	public void fill(@NonNull DeckRow deckRow) {
+		deckRow.setId(getLong(idColumn, CursorDefaults.LONG));
 
-		return new Deck(deckId, deckTitle, deckCurrentCardPosition);
+		copyString(titleColumn, deckRow.getTitle());
 	}
 }
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.cursor;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ru.ming13.gambit.model.Card;
+import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.provider.GambitContract;
+import ru.ming13.gambit.util.ShuffledList;
+import ru.ming13.gambit.util.SqlBuilder;
+
+public class PagedCardsList extends AbstractList<Card>
+{
+	private static final int PAGE_SIZE = 20;
+	private static final int PAGES_COUNT = 8;
+
+	private static final class PageCard
+	{
+		public final Card card;
+		public final long cardOrderIndex;
+
+		public PageCard(Card card, long cardOrderIndex) {
+			this.card = card;
+			this.cardOrderIndex = cardOrderIndex;
+		}
+	}
+
+	private final class PageLoadingTask extends AsyncTask<Void, Void, List<PageCard>>
+	{
+		private final int page;
+		private final Uri pageUri;
+		private final List<Long> pageCardIds;
+
+		public PageLoadingTask(int page, Uri pageUri, List<Long> pageCardIds) {
+			this.page = page;
+			this.pageUri = pageUri;
+			this.pageCardIds = pageCardIds;
+		}
+
+		@Override
+		protected List<PageCard> doInBackground(Void... parameters) {
+			if (pageCardIds == null) {
+				return loadCards(pageUri, null);
+			} else {
+				return sortCards(loadCards(pageUri, buildCardIdsSelectionClause(pageCardIds)), pageCardIds);
+			}
+		}
+
+		@Override
+		protected void onPostExecute(List<PageCard> pageCards) {
+			super.onPostExecute(pageCards);
+
+			finishPageLoading(page, pageCards);
+		}
+	}
+
+	private final class CardIdsLoadingTask extends AsyncTask<Void, Void, List<Long>>
+	{
+		@Override
+		protected List<Long> doInBackground(Void... parameters) {
+			return loadCardIds();
+		}
+
+		@Override
+		protected void onPostExecute(List<Long> cardIds) {
+			super.onPostExecute(cardIds);
+
+			finishCardIdsLoading(cardIds);
+		}
+	}
+
+	private final ContentResolver contentResolver;
+	private final Deck deck;
+	private final int cardsCount;
+
+	private final CardsLoadingListener loadingListener;
+
+	private final LruCache<Integer, List<PageCard>> pages;
+	private final Set<Integer> loadingPages;
+
+	private List<Long> shuffledCardIds;
+	private boolean shuffledCardIdsLoading;
+
+	public static PagedCardsList of(@NonNull ContentResolver contentResolver, @NonNull Deck deck, int cardsCount, @NonNull CardsLoadingListener loadingListener) {
+		return new PagedCardsList(contentResolver, deck, cardsCount, loadingListener);
+	}
+
+	private PagedCardsList(ContentResolver contentResolver, Deck deck, int cardsCount, CardsLoadingListener loadingListener) {
+		this.contentResolver = contentResolver;
+		this.deck = deck;
+		this.cardsCount = cardsCount;
+
+		this.loadingListener = loadingListener;
+
+		this.pages = new LruCache<>(PAGES_COUNT);
+		this.loadingPages = new HashSet<>();
+	}
+
+	@Override
+	public Card get(int cardPosition) {
+		// Pages are queried off the main thread, a blank card stands in until its page arrives
+
+		if ((cardPosition < 0) || (cardPosition >= cardsCount)) {
+			throw new IndexOutOfBoundsException(String.format("Position %d, size %d.", cardPosition, cardsCount));
+		}
+
+		if (isShuffled() && (shuffledCardIds == null)) {
+			startCardIdsLoading();
+
+			return buildBlankCard();
+		}
+
+		int page = cardPosition / PAGE_SIZE;
+		int pagePosition = cardPosition % PAGE_SIZE;
+
+		List<PageCard> pageCards = pages.get(page);
+
+		if (pageCards == null) {
+			startPageLoading(page);
+
+			return buildBlankCard();
+		}
+
+		prefetchPage(page, pagePosition);
+
+		if (pagePosition >= pageCards.size()) {
+			// Cards were removed after counting, an upcoming reload will refill the list
+
+			return buildBlankCard();
+		}
+
+		return pageCards.get(pagePosition).card;
+	}
+
+	private Card buildBlankCard() {
+		return new Card(CursorDefaults.LONG, CursorDefaults.STRING, CursorDefaults.STRING);
+	}
+
+	private void prefetchPage(int page, int pagePosition) {
+		// The neighbouring page on the way is loaded before it is reached
+
+		if (pagePosition >= PAGE_SIZE / 2) {
+			if ((page + 1) * PAGE_SIZE < cardsCount) {
+				startPageLoading(page + 1);
+			}
+		} else {
+			if (page > 0) {
+				startPageLoading(page - 1);
+			}
+		}
+	}
+
+	private void startPageLoading(int page) {
+		if (loadingPages.contains(page) || (pages.get(page) != null)) {
+			return;
+		}
+
+		if (isShuffled()) {
+			List<Long> pageCardIds = getPageCardIds(page);
+
+			if (pageCardIds.isEmpty()) {
+				return;
+			}
+
+			loadingPages.add(page);
+
+			new PageLoadingTask(page, GambitContract.Cards.getCardsUri(deck.getId()), pageCardIds).execute();
+		} else {
+			loadingPages.add(page);
+
+			new PageLoadingTask(page, buildPageUri(page), null).execute();
+		}
+	}
+
+	private boolean isShuffled() {
+		return deck.getShuffleSeed() != GambitContract.Decks.Defaults.SHUFFLE_SEED;
+	}
+
+	private void startCardIdsLoading() {
+		// Shuffled positions are scattered across the deck, so pages of them are loaded by ids.
+		// Ids are read once in the original order and permuted the same way positions are.
+
+		if (shuffledCardIdsLoading) {
+			return;
+		}
+
+		shuffledCardIdsLoading = true;
+
+		new CardIdsLoadingTask().execute();
+	}
+
+	private List<Long> loadCardIds() {
+		List<Long> cardIds = new ArrayList<>();
+
+		// Limited queries are sorted by order index, front side text and id, the same way as pages
+
+		CardsCursor cardsCursor = new CardsCursor(contentResolver.query(
+			GambitContract.Cards.getCardsUri(deck.getId(), cardsCount, 0),
+			new String[] {GambitContract.Cards._ID}, null, null, null));
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				cardIds.add(cardsCursor.peek().getId());
+			}
+		} finally {
+			cardsCursor.close();
+		}
+
+		return cardIds;
+	}
+
+	private void finishCardIdsLoading(List<Long> cardIds) {
+		shuffledCardIdsLoading = false;
+
+		shuffledCardIds = ShuffledList.of(cardIds, deck.getShuffleSeed());
+
+		if (!shuffledCardIds.isEmpty()) {
+			loadingListener.onCardsLoaded();
+		}
+	}
+
+	private List<Long> getPageCardIds(int page) {
+		// Cards could be removed after counting, the last pages are shorter then
+
+		int pageStart = Math.min(page * PAGE_SIZE, shuffledCardIds.size());
+		int pageEnd = Math.min(pageStart + PAGE_SIZE, shuffledCardIds.size());
+
+		return new ArrayList<>(shuffledCardIds.subList(pageStart, pageEnd));
+	}
+
+	private String buildCardIdsSelectionClause(List<Long> cardIds) {
+		return SqlBuilder.buildInclusionSelectionClause(GambitContract.Cards._ID, cardIds);
+	}
+
+	private List<PageCard> sortCards(List<PageCard> cards, List<Long> cardIds) {
+		// Cards come in the index order, a page keeps the shuffled one
+
+		Map<Long, PageCard> cardsMap = new HashMap<>();
+
+		for (PageCard card : cards) {
+			cardsMap.put(card.card.getId(), card);
+		}
+
+		List<PageCard> sortedCards = new ArrayList<>();
+
+		for (long cardId : cardIds) {
+			if (cardsMap.containsKey(cardId)) {
+				sortedCards.add(cardsMap.get(cardId));
+			}
+		}
+
+		return sortedCards;
+	}
+
+	private Uri buildPageUri(int page) {
+		// Neighbouring pages are walked by keys, offsets are used only for jumps
+
+		List<PageCard> previousPageCards = pages.get(page - 1);
+
+		if ((previousPageCards != null) && (previousPageCards.size() == PAGE_SIZE)) {
+			PageCard lastCard = previousPageCards.get(previousPageCards.size() - 1);
+
+			return GambitContract.Cards.getCardsAfterUri(
+				deck.getId(), lastCard.cardOrderIndex, lastCard.card.getFrontSideText(), lastCard.card.getId(), PAGE_SIZE);
+		}
+
+		List<PageCard> nextPageCards = pages.get(page + 1);
+
+		if ((nextPageCards != null) && !nextPageCards.isEmpty()) {
+			PageCard firstCard = nextPageCards.get(0);
+
+			return GambitContract.Cards.getCardsBeforeUri(
+				deck.getId(), firstCard.cardOrderIndex, firstCard.card.getFrontSideText(), firstCard.card.getId(), PAGE_SIZE);
+		}
+
+		return GambitContract.Cards.getCardsUri(deck.getId(), PAGE_SIZE, page * PAGE_SIZE);
+	}
+
+	private List<PageCard> loadCards(Uri cardsPageUri, String cardsSelection) {
+		List<PageCard> cards = new ArrayList<>();
+
+		CardsCursor cardsCursor = new CardsCursor(contentResolver.query(cardsPageUri, GambitContract.Cards.Projections.PAGER, cardsSelection, null, null));
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				cards.add(new PageCard(cardsCursor.peek(), cardsCursor.getOrderIndex()));
+			}
+		} finally {
+			cardsCursor.close();
+		}
+
+		return cards;
+	}
+
+	private void finishPageLoading(int page, List<PageCard> pageCards) {
+		loadingPages.remove(page);
+
+		pages.put(page, pageCards);
+
+		// Empty pages come only from cards removed after counting, there is nothing new to show
+
+		if (!pageCards.isEmpty()) {
+			loadingListener.onCardsLoaded();
+		}
+	}
+
+	@Override
+	public int size() {
+		return cardsCount;
+	}
+}
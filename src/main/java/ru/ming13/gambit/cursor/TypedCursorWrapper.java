@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.cursor;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import com.venmo.cursor.IterableCursorWrapper;
+
+abstract class TypedCursorWrapper<T> extends IterableCursorWrapper<T>
+{
+	private static final int MISSING_COLUMN = -1;
+
+	protected TypedCursorWrapper(Cursor cursor) {
+		super(cursor);
+	}
+
+	protected final long getLong(int column, long defaultValue) {
+		if (isValueMissing(column)) {
+			return defaultValue;
+		}
+
+		return getLong(column);
+	}
+
+	protected final int getInteger(int column, int defaultValue) {
+		if (isValueMissing(column)) {
+			return defaultValue;
+		}
+
+		return getInt(column);
+	}
+
+	protected final String getString(int column, String defaultValue) {
+		if (isValueMissing(column)) {
+			return defaultValue;
+		}
+
+		return getString(column);
+	}
+
+	protected final void copyString(int column, CharArrayBuffer buffer) {
+		// Characters go to a reusable buffer, binding a row does not allocate a string
+
+		if (isValueMissing(column)) {
+			buffer.sizeCopied = 0;
+		} else {
+			copyStringToBuffer(column, buffer);
+		}
+	}
+
+	private boolean isValueMissing(int column) {
+		return (column == MISSING_COLUMN) || isNull(column);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+final class ChunkedInputStream extends FilterInputStream
+{
+	private final DataInputStream chunksStream;
+
+	private int chunkRemainingLength;
+	private boolean finished;
+
+	public ChunkedInputStream(@NonNull InputStream inputStream) {
+		super(inputStream);
+
+		this.chunksStream = new DataInputStream(inputStream);
+
+		this.chunkRemainingLength = 0;
+		this.finished = false;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!isChunkAvailable()) {
+			return -1;
+		}
+
+		chunkRemainingLength--;
+
+		return chunksStream.readUnsignedByte();
+	}
+
+	@Override
+	public int read(@NonNull byte[] buffer, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+
+		if (!isChunkAvailable()) {
+			return -1;
+		}
+
+		int readLength = chunksStream.read(buffer, offset, Math.min(length, chunkRemainingLength));
+
+		if (readLength < 0) {
+			throw new IOException("Backup chunk is truncated");
+		}
+
+		chunkRemainingLength -= readLength;
+
+		return readLength;
+	}
+
+	private boolean isChunkAvailable() throws IOException {
+		if (finished) {
+			return false;
+		}
+
+		if (chunkRemainingLength == 0) {
+			chunkRemainingLength = chunksStream.readInt();
+
+			if (chunkRemainingLength < 0) {
+				throw new IOException(String.format("Wrong backup chunk length: %d", chunkRemainingLength));
+			}
+
+			finished = (chunkRemainingLength == 0);
+		}
+
+		return !finished;
+	}
+
+	@Override
+	public long skip(long length) throws IOException {
+		byte[] buffer = new byte[(int) Math.min(length, 8 * 1024)];
+
+		long skippedLength = 0;
+
+		while (skippedLength < length) {
+			int readLength = read(buffer, 0, (int) Math.min(buffer.length, length - skippedLength));
+
+			if (readLength < 0) {
+				break;
+			}
+
+			skippedLength += readLength;
+		}
+
+		return skippedLength;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return finished ? 0 : Math.min(chunkRemainingLength, super.available());
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// Chunks end before the underlying stream does, it stays open for following segments
+
+		skip(Long.MAX_VALUE);
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+final class ChunkedOutputStream extends FilterOutputStream
+{
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private final DataOutputStream chunksStream;
+
+	private final byte[] chunk;
+	private int chunkLength;
+
+	private boolean finished;
+
+	public ChunkedOutputStream(@NonNull OutputStream outputStream) {
+		super(outputStream);
+
+		this.chunksStream = new DataOutputStream(outputStream);
+
+		this.chunk = new byte[CHUNK_SIZE];
+		this.chunkLength = 0;
+
+		this.finished = false;
+	}
+
+	@Override
+	public void write(int oneByte) throws IOException {
+		if (chunkLength == chunk.length) {
+			writeChunk();
+		}
+
+		chunk[chunkLength++] = (byte) oneByte;
+	}
+
+	@Override
+	public void write(@NonNull byte[] buffer, int offset, int length) throws IOException {
+		while (length > 0) {
+			if (chunkLength == chunk.length) {
+				writeChunk();
+			}
+
+			int copyLength = Math.min(length, chunk.length - chunkLength);
+
+			System.arraycopy(buffer, offset, chunk, chunkLength, copyLength);
+
+			chunkLength += copyLength;
+			offset += copyLength;
+			length -= copyLength;
+		}
+	}
+
+	private void writeChunk() throws IOException {
+		chunksStream.writeInt(chunkLength);
+		chunksStream.write(chunk, 0, chunkLength);
+
+		chunkLength = 0;
+	}
+
+	public void finish() throws IOException {
+		// An empty chunk marks the end, so anything can be appended after it
+
+		if (finished) {
+			return;
+		}
+
+		if (chunkLength > 0) {
+			writeChunk();
+		}
+
+		writeChunk();
+
+		chunksStream.flush();
+
+		finished = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		finish();
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import java.nio.charset.Charset;
+
+final class DatabaseBackupFormat
+{
+	private DatabaseBackupFormat() {
+	}
+
+	public static final int MAGIC = 0x474d4258;
+	public static final int VERSION = 1;
+
+	public static final int SEGMENT_MAGIC = 0x474d4253;
+
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+
+	public static final String LEGACY_HEADER = "SQLite format 3\u0000";
+
+	public static final class Segments
+	{
+		private Segments() {
+		}
+
+		public static final int BASE = 1;
+		public static final int DELTA = 2;
+	}
+
+	public static final class Records
+	{
+		private Records() {
+		}
+
+		public static final int END = 0;
+		public static final int DECK = 1;
+		public static final int CARD = 2;
+		public static final int DECK_DELETION = 3;
+		public static final int CARD_DELETION = 4;
+	}
+
+	public static final String[] DECKS_COLUMNS = {
+		DatabaseSchema.DecksColumns._ID,
+		DatabaseSchema.DecksColumns.TITLE,
+		DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX,
+		DatabaseSchema.DecksColumns.SHUFFLE_SEED
+	};
+
+	public static final String[] CARDS_COLUMNS = {
+		DatabaseSchema.CardsColumns._ID,
+		DatabaseSchema.CardsColumns.DECK_ID,
+		DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+		DatabaseSchema.CardsColumns.BACK_SIDE_TEXT,
+		DatabaseSchema.CardsColumns.ORDER_INDEX
+	};
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
+
+final class DatabaseBackupReader
+{
+	private final SQLiteDatabase database;
+	private final DatabaseProgressReporter progressReporter;
+
+	public static DatabaseBackupReader of(@NonNull SQLiteDatabase database, @NonNull DatabaseProgressReporter progressReporter) {
+		return new DatabaseBackupReader(database, progressReporter);
+	}
+
+	private DatabaseBackupReader(SQLiteDatabase database, DatabaseProgressReporter progressReporter) {
+		this.database = database;
+		this.progressReporter = progressReporter;
+	}
+
+	public DatabaseMergeReport read(@NonNull InputStream backupStream) throws IOException {
+		PushbackInputStream segmentsStream = new PushbackInputStream(backupStream);
+
+		DatabaseMerger databaseMerger = DatabaseMerger.at(database);
+
+		try {
+			// Nothing is changed unless every segment is read and its checksum matches
+
+			database.beginTransaction();
+
+			// The base goes first, changes are replayed over it in order
+
+			DatabaseBackupSegment segment = DatabaseBackupSegment.read(segmentsStream);
+
+			while (segment != null) {
+				ChunkedInputStream chunksStream = new ChunkedInputStream(segmentsStream);
+
+				readSegment(chunksStream, databaseMerger);
+
+				chunksStream.close();
+
+				segment = DatabaseBackupSegment.read(segmentsStream);
+			}
+
+			database.setTransactionSuccessful();
+
+			return databaseMerger.getReport();
+		} finally {
+			database.endTransaction();
+
+			databaseMerger.close();
+		}
+	}
+
+	private void readSegment(InputStream segmentStream, DatabaseMerger databaseMerger) throws IOException {
+		BufferedInputStream bufferedStream = new BufferedInputStream(new GZIPInputStream(segmentStream));
+		CheckedInputStream checkedStream = new CheckedInputStream(bufferedStream, new CRC32());
+		DataInputStream recordsStream = new DataInputStream(checkedStream);
+
+		long rowsCount = readHeader(recordsStream);
+
+		readRecords(recordsStream, databaseMerger, rowsCount);
+
+		long checksum = new DataInputStream(bufferedStream).readLong();
+
+		if (checksum != checkedStream.getChecksum().getValue()) {
+			throw new IOException("Backup checksum mismatch");
+		}
+	}
+
+	private long readHeader(DataInputStream recordsStream) throws IOException {
+		if (recordsStream.readInt() != DatabaseBackupFormat.MAGIC) {
+			throw new IOException("Unknown backup format");
+		}
+
+		int version = recordsStream.readInt();
+
+		if (version != DatabaseBackupFormat.VERSION) {
+			throw new IOException(String.format("Unsupported backup version: %d", version));
+		}
+
+		long decksCount = recordsStream.readLong();
+		long cardsCount = recordsStream.readLong();
+
+		return decksCount + cardsCount;
+	}
+
+	private void readRecords(DataInputStream recordsStream, DatabaseMerger databaseMerger, long rowsCount) throws IOException {
+		for (long processedRowsCount = 0; ; processedRowsCount++) {
+			progressReporter.report(processedRowsCount, rowsCount);
+
+			int record = recordsStream.readByte();
+
+			switch (record) {
+				case DatabaseBackupFormat.Records.END:
+					return;
+
+				case DatabaseBackupFormat.Records.DECK:
+					readDeck(recordsStream, databaseMerger);
+					break;
+
+				case DatabaseBackupFormat.Records.CARD:
+					readCard(recordsStream, databaseMerger);
+					break;
+
+				case DatabaseBackupFormat.Records.DECK_DELETION:
+					databaseMerger.deleteDeck(recordsStream.readLong());
+					break;
+
+				case DatabaseBackupFormat.Records.CARD_DELETION:
+					databaseMerger.deleteCard(recordsStream.readLong());
+					break;
+
+				default:
+					throw new IOException(String.format("Unknown backup record: %d", record));
+			}
+		}
+	}
+
+	private void readDeck(DataInputStream recordsStream, DatabaseMerger databaseMerger) throws IOException {
+		long deckId = recordsStream.readLong();
+		String deckTitle = readText(recordsStream);
+		int deckCurrentCardIndex = recordsStream.readInt();
+		long deckShuffleSeed = recordsStream.readLong();
+
+		databaseMerger.mergeDeck(deckId, deckTitle, deckCurrentCardIndex, deckShuffleSeed);
+	}
+
+	private void readCard(DataInputStream recordsStream, DatabaseMerger databaseMerger) throws IOException {
+		long cardId = recordsStream.readLong();
+		long cardDeckId = recordsStream.readLong();
+		String cardFrontSideText = readText(recordsStream);
+		String cardBackSideText = readText(recordsStream);
+		int cardOrderIndex = recordsStream.readInt();
+
+		databaseMerger.mergeCard(cardId, cardDeckId, cardFrontSideText, cardBackSideText, cardOrderIndex);
+	}
+
+	private String readText(DataInputStream recordsStream) throws IOException {
+		int textLength = recordsStream.readInt();
+
+		if (textLength < 0) {
+			throw new IOException(String.format("Wrong backup text length: %d", textLength));
+		}
+
+		byte[] textBytes = new byte[textLength];
+
+		recordsStream.readFully(textBytes);
+
+		return new String(textBytes, DatabaseBackupFormat.CHARSET);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+
+final class DatabaseBackupSegment
+{
+	private final int type;
+	private final long journalPosition;
+
+	public static void write(@NonNull OutputStream backupStream, int type, long journalPosition) throws IOException {
+		DataOutputStream headerStream = new DataOutputStream(backupStream);
+
+		headerStream.writeInt(DatabaseBackupFormat.SEGMENT_MAGIC);
+		headerStream.writeByte(type);
+		headerStream.writeLong(journalPosition);
+
+		headerStream.flush();
+	}
+
+	public static DatabaseBackupSegment read(@NonNull PushbackInputStream backupStream) throws IOException {
+		int headerByte = backupStream.read();
+
+		if (headerByte < 0) {
+			return null;
+		}
+
+		backupStream.unread(headerByte);
+
+		DataInputStream headerStream = new DataInputStream(backupStream);
+
+		if (headerStream.readInt() != DatabaseBackupFormat.SEGMENT_MAGIC) {
+			throw new IOException("Unknown backup format");
+		}
+
+		int type = headerStream.readByte();
+
+		if ((type != DatabaseBackupFormat.Segments.BASE) && (type != DatabaseBackupFormat.Segments.DELTA)) {
+			throw new IOException(String.format("Unknown backup segment: %d", type));
+		}
+
+		return new DatabaseBackupSegment(type, headerStream.readLong());
+	}
+
+	private DatabaseBackupSegment(int type, long journalPosition) {
+		this.type = type;
+		this.journalPosition = journalPosition;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	public long getJournalPosition() {
+		return journalPosition;
+	}
+}
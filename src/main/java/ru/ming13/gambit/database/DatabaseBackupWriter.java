@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import ru.ming13.gambit.util.SqlBuilder;
+
+final class DatabaseBackupWriter
+{
+	private static final String SAVEPOINT = "changes";
+
+	private static final class RowsSelection
+	{
+		public final String decksSelection;
+		public final String cardsSelection;
+
+		public final String deletedDecksSelection;
+		public final String deletedCardsSelection;
+
+		public RowsSelection(String decksSelection, String cardsSelection, String deletedDecksSelection, String deletedCardsSelection) {
+			this.decksSelection = decksSelection;
+			this.cardsSelection = cardsSelection;
+
+			this.deletedDecksSelection = deletedDecksSelection;
+			this.deletedCardsSelection = deletedCardsSelection;
+		}
+	}
+
+	private final SQLiteDatabase database;
+
+	public static DatabaseBackupWriter of(@NonNull SQLiteDatabase database) {
+		return new DatabaseBackupWriter(database);
+	}
+
+	private DatabaseBackupWriter(SQLiteDatabase database) {
+		this.database = database;
+	}
+
+	public void writeBase(@NonNull OutputStream backupStream, long journalPosition) throws IOException {
+		try {
+			// Counts and rows are read at the same point
+
+			database.beginTransactionNonExclusive();
+
+			writeSegment(backupStream, DatabaseBackupFormat.Segments.BASE, journalPosition,
+				new RowsSelection(null, null, null, null));
+
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+
+	public boolean writeChanges(@NonNull OutputStream backupStream, long journalPosition) throws IOException {
+		DatabaseJournal journal = DatabaseJournal.at(database);
+
+		// Changes are streamed from a read-only connection, a savepoint pins its read snapshot
+		// without taking the write lock, so edits made meanwhile go to the next segment
+
+		database.execSQL(SqlBuilder.buildSavepointClause(SAVEPOINT));
+
+		try {
+			long changesJournalPosition = journal.getPosition();
+
+			if (changesJournalPosition == journalPosition) {
+				return false;
+			}
+
+			writeSegment(backupStream, DatabaseBackupFormat.Segments.DELTA, changesJournalPosition,
+				new RowsSelection(
+					journal.buildChangedRowsSelectionClause(DatabaseSchema.Tables.DECKS, journalPosition),
+					journal.buildChangedRowsSelectionClause(DatabaseSchema.Tables.CARDS, journalPosition),
+					journal.buildDeletedRowsSelectionClause(DatabaseSchema.Tables.DECKS, journalPosition),
+					journal.buildDeletedRowsSelectionClause(DatabaseSchema.Tables.CARDS, journalPosition)));
+
+			return true;
+		} finally {
+			database.execSQL(SqlBuilder.buildSavepointReleasingClause(SAVEPOINT));
+		}
+	}
+
+	private void writeSegment(OutputStream backupStream, int segmentType, long journalPosition, RowsSelection rowsSelection) throws IOException {
+		DatabaseBackupSegment.write(backupStream, segmentType, journalPosition);
+
+		// Chunks let segments be appended one after another
+
+		ChunkedOutputStream chunksStream = new ChunkedOutputStream(backupStream);
+
+		writeRecords(chunksStream, rowsSelection);
+
+		chunksStream.finish();
+	}
+
+	private void writeRecords(OutputStream segmentStream, RowsSelection rowsSelection) throws IOException {
+		// Compressed records, followed by their checksum
+
+		GZIPOutputStream compressedStream = new GZIPOutputStream(segmentStream);
+		BufferedOutputStream bufferedStream = new BufferedOutputStream(compressedStream);
+		CheckedOutputStream checkedStream = new CheckedOutputStream(bufferedStream, new CRC32());
+		DataOutputStream recordsStream = new DataOutputStream(checkedStream);
+
+		writeHeader(recordsStream, rowsSelection);
+
+		writeDecks(recordsStream, rowsSelection.decksSelection);
+		writeCards(recordsStream, rowsSelection.cardsSelection);
+
+		writeDeletions(recordsStream, DatabaseBackupFormat.Records.CARD_DELETION, rowsSelection.deletedCardsSelection);
+		writeDeletions(recordsStream, DatabaseBackupFormat.Records.DECK_DELETION, rowsSelection.deletedDecksSelection);
+
+		recordsStream.writeByte(DatabaseBackupFormat.Records.END);
+
+		new DataOutputStream(bufferedStream).writeLong(checkedStream.getChecksum().getValue());
+
+		bufferedStream.flush();
+		compressedStream.finish();
+	}
+
+	private void writeHeader(DataOutputStream recordsStream, RowsSelection rowsSelection) throws IOException {
+		recordsStream.writeInt(DatabaseBackupFormat.MAGIC);
+		recordsStream.writeInt(DatabaseBackupFormat.VERSION);
+
+		recordsStream.writeLong(
+			countRows(DatabaseSchema.Tables.DECKS, rowsSelection.decksSelection) +
+			countDeletions(rowsSelection.deletedDecksSelection));
+		recordsStream.writeLong(
+			countRows(DatabaseSchema.Tables.CARDS, rowsSelection.cardsSelection) +
+			countDeletions(rowsSelection.deletedCardsSelection));
+	}
+
+	private long countRows(String table, String selection) {
+		return DatabaseUtils.queryNumEntries(database, table, selection);
+	}
+
+	private long countDeletions(String deletionsSelection) {
+		if (deletionsSelection == null) {
+			return 0;
+		}
+
+		return countRows(DatabaseSchema.Tables.CHANGES, deletionsSelection);
+	}
+
+	private void writeDecks(DataOutputStream recordsStream, String decksSelection) throws IOException {
+		Cursor decksCursor = database.query(DatabaseSchema.Tables.DECKS, DatabaseBackupFormat.DECKS_COLUMNS,
+			decksSelection, null, null, null, DatabaseSchema.DecksColumns._ID);
+
+		try {
+			while (decksCursor.moveToNext()) {
+				recordsStream.writeByte(DatabaseBackupFormat.Records.DECK);
+
+				recordsStream.writeLong(decksCursor.getLong(0));
+				writeText(recordsStream, decksCursor.getString(1));
+				recordsStream.writeInt(decksCursor.getInt(2));
+				recordsStream.writeLong(decksCursor.getLong(3));
+			}
+		} finally {
+			decksCursor.close();
+		}
+	}
+
+	private void writeCards(DataOutputStream recordsStream, String cardsSelection) throws IOException {
+		Cursor cardsCursor = database.query(DatabaseSchema.Tables.CARDS, DatabaseBackupFormat.CARDS_COLUMNS,
+			cardsSelection, null, null, null, DatabaseSchema.CardsColumns._ID);
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				recordsStream.writeByte(DatabaseBackupFormat.Records.CARD);
+
+				recordsStream.writeLong(cardsCursor.getLong(0));
+				recordsStream.writeLong(cardsCursor.getLong(1));
+				writeText(recordsStream, cardsCursor.getString(2));
+				writeText(recordsStream, cardsCursor.getString(3));
+				recordsStream.writeInt(cardsCursor.getInt(4));
+			}
+		} finally {
+			cardsCursor.close();
+		}
+	}
+
+	private void writeDeletions(DataOutputStream recordsStream, int deletionRecord, String deletionsSelection) throws IOException {
+		if (deletionsSelection == null) {
+			return;
+		}
+
+		Cursor deletionsCursor = database.query(DatabaseSchema.Tables.CHANGES,
+			new String[] {DatabaseSchema.ChangesColumns.ROW_ID},
+			deletionsSelection, null, null, null, DatabaseSchema.ChangesColumns._ID);
+
+		try {
+			while (deletionsCursor.moveToNext()) {
+				recordsStream.writeByte(deletionRecord);
+
+				recordsStream.writeLong(deletionsCursor.getLong(0));
+			}
+		} finally {
+			deletionsCursor.close();
+		}
+	}
+
+	private void writeText(DataOutputStream recordsStream, String text) throws IOException {
+		// Modified UTF-8 of writeUTF is limited to 64 KB
+
+		byte[] textBytes = text.getBytes(DatabaseBackupFormat.CHARSET);
+
+		recordsStream.writeInt(textBytes.length);
+		recordsStream.write(textBytes);
+	}
+}
@@ -149,6 +149,7 @@ public final class DatabaseDefaults
 		ContentValues deckValues = new ContentValues();
 		deckValues.put(DatabaseSchema.DecksColumns.TITLE, getDeckTitle());
 		deckValues.put(DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX, DatabaseSchema.DecksColumnsDefaultValues.CURRENT_CARD_INDEX);
+		deckValues.put(DatabaseSchema.DecksColumns.SHUFFLE_SEED, DatabaseSchema.DecksColumnsDefaultValues.SHUFFLE_SEED);
 
 		return database.insert(DatabaseSchema.Tables.DECKS, null, deckValues);
 	}
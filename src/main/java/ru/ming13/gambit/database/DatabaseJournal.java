@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+import android.support.annotation.NonNull;
+
+import ru.ming13.gambit.util.SqlBuilder;
+
+final class DatabaseJournal
+{
+	private static final class Events
+	{
+		private Events() {
+		}
+
+		public static final String INSERTION = "insert";
+		public static final String UPDATING = "update";
+		public static final String DELETION = "delete";
+	}
+
+	private static final class Rows
+	{
+		private Rows() {
+		}
+
+		public static final String NEW = "new";
+		public static final String OLD = "old";
+	}
+
+	private static final String[] JOURNAL_COLUMNS = {
+		DatabaseSchema.ChangesColumns.TABLE_NAME,
+		DatabaseSchema.ChangesColumns.ROW_ID
+	};
+
+	private final SQLiteDatabase database;
+
+	public static DatabaseJournal at(@NonNull SQLiteDatabase database) {
+		return new DatabaseJournal(database);
+	}
+
+	private DatabaseJournal(SQLiteDatabase database) {
+		this.database = database;
+	}
+
+	public void create() {
+		createTable();
+		createTriggers();
+	}
+
+	private void createTable() {
+		// Only the latest change of a row is kept, the journal does not grow with edits
+
+		database.execSQL(SqlBuilder.buildTableCreationClause(DatabaseSchema.Tables.CHANGES,
+			SqlBuilder.buildTableDescription(
+				SqlBuilder.buildColumnDescription(
+					DatabaseSchema.ChangesColumns._ID, DatabaseSchema.ChangesColumnsParameters._ID),
+				SqlBuilder.buildColumnDescription(
+					DatabaseSchema.ChangesColumns.TABLE_NAME, DatabaseSchema.ChangesColumnsParameters.TABLE_NAME),
+				SqlBuilder.buildColumnDescription(
+					DatabaseSchema.ChangesColumns.ROW_ID, DatabaseSchema.ChangesColumnsParameters.ROW_ID),
+				SqlBuilder.buildReplacingUniqueConstraint(
+					DatabaseSchema.ChangesColumns.TABLE_NAME, DatabaseSchema.ChangesColumns.ROW_ID))));
+	}
+
+	private void createTriggers() {
+		createTrigger(DatabaseSchema.Triggers.DECKS_INSERTION_JOURNAL, Events.INSERTION, DatabaseSchema.Tables.DECKS, Rows.NEW);
+		createTrigger(DatabaseSchema.Triggers.DECKS_UPDATING_JOURNAL, Events.UPDATING, DatabaseSchema.Tables.DECKS, Rows.NEW);
+		createTrigger(DatabaseSchema.Triggers.DECKS_DELETION_JOURNAL, Events.DELETION, DatabaseSchema.Tables.DECKS, Rows.OLD);
+
+		createTrigger(DatabaseSchema.Triggers.CARDS_INSERTION_JOURNAL, Events.INSERTION, DatabaseSchema.Tables.CARDS, Rows.NEW);
+		createTrigger(DatabaseSchema.Triggers.CARDS_UPDATING_JOURNAL, Events.UPDATING, DatabaseSchema.Tables.CARDS, Rows.NEW);
+		createTrigger(DatabaseSchema.Triggers.CARDS_DELETION_JOURNAL, Events.DELETION, DatabaseSchema.Tables.CARDS, Rows.OLD);
+	}
+
+	private void createTrigger(String trigger, String event, String table, String row) {
+		String[] journalValues = {
+			DatabaseUtils.sqlEscapeString(table),
+			SqlBuilder.buildRowReference(row, BaseColumns._ID)
+		};
+
+		database.execSQL(SqlBuilder.buildTriggerCreationClause(trigger, event, table,
+			SqlBuilder.buildRowInsertionClause(DatabaseSchema.Tables.CHANGES, JOURNAL_COLUMNS, journalValues)));
+	}
+
+	public long getPosition() {
+		Cursor positionCursor = database.query(DatabaseSchema.Tables.CHANGES,
+			new String[] {SqlBuilder.buildMaximumProjection(DatabaseSchema.ChangesColumns._ID)},
+			null, null, null, null, null);
+
+		try {
+			positionCursor.moveToFirst();
+
+			return positionCursor.getLong(0);
+		} finally {
+			positionCursor.close();
+		}
+	}
+
+	public String buildChangedRowsSelectionClause(@NonNull String table, long position) {
+		return SqlBuilder.buildSubquerySelectionClause(
+			BaseColumns._ID,
+			DatabaseSchema.ChangesColumns.ROW_ID,
+			DatabaseSchema.Tables.CHANGES,
+			buildChangesSelectionClause(table, position));
+	}
+
+	public String buildDeletedRowsSelectionClause(@NonNull String table, long position) {
+		return String.format("%s and %s",
+			buildChangesSelectionClause(table, position),
+			SqlBuilder.buildExclusionSelectionClause(DatabaseSchema.ChangesColumns.ROW_ID, BaseColumns._ID, table));
+	}
+
+	private String buildChangesSelectionClause(String table, long position) {
+		return String.format("%s and %s",
+			SqlBuilder.buildEqualityClause(DatabaseSchema.ChangesColumns.TABLE_NAME, DatabaseUtils.sqlEscapeString(table)),
+			SqlBuilder.buildGreaterClause(DatabaseSchema.ChangesColumns._ID, position));
+	}
+}
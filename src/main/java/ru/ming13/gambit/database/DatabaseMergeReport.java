@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+public final class DatabaseMergeReport
+{
+	private final int insertedRowsCount;
+	private final int updatedRowsCount;
+	private final int deletedRowsCount;
+	private final int skippedRowsCount;
+
+	DatabaseMergeReport(int insertedRowsCount, int updatedRowsCount, int deletedRowsCount, int skippedRowsCount) {
+		this.insertedRowsCount = insertedRowsCount;
+		this.updatedRowsCount = updatedRowsCount;
+		this.deletedRowsCount = deletedRowsCount;
+		this.skippedRowsCount = skippedRowsCount;
+	}
+
+	public int getInsertedRowsCount() {
+		return insertedRowsCount;
+	}
+
+	public int getUpdatedRowsCount() {
+		return updatedRowsCount;
+	}
+
+	public int getDeletedRowsCount() {
+		return deletedRowsCount;
+	}
+
+	public int getSkippedRowsCount() {
+		return skippedRowsCount;
+	}
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+import android.util.Base64;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import ru.ming13.gambit.util.SqlBuilder;
+
+final class DatabaseMerger
+{
+	private static final String CONTENT_DIGEST_ALGORITHM = "SHA-1";
+
+	private static final class MergedCard
+	{
+		public final long id;
+		public final int orderIndex;
+
+		public MergedCard(long id, int orderIndex) {
+			this.id = id;
+			this.orderIndex = orderIndex;
+		}
+	}
+
+	private final SQLiteDatabase database;
+	private final MessageDigest contentDigest;
+
+	private final SQLiteStatement deckInsertionStatement;
+	private final SQLiteStatement deckUpdatingStatement;
+	private final SQLiteStatement cardInsertionStatement;
+	private final SQLiteStatement cardUpdatingStatement;
+	private final SQLiteStatement deckDeletionStatement;
+	private final SQLiteStatement deckCardsDeletionStatement;
+	private final SQLiteStatement cardDeletionStatement;
+
+	private final Map<Long, Long> deckIds;
+	private final Map<Long, Long> cardIds;
+	private final Map<Long, Map<String, Deque<MergedCard>>> decksCards;
+
+	private int insertedRowsCount;
+	private int updatedRowsCount;
+	private int deletedRowsCount;
+	private int skippedRowsCount;
+
+	public static DatabaseMerger at(@NonNull SQLiteDatabase database) {
+		return new DatabaseMerger(database);
+	}
+
+	private DatabaseMerger(SQLiteDatabase database) {
+		this.database = database;
+		this.contentDigest = buildContentDigest();
+
+		this.deckInsertionStatement = database.compileStatement(SqlBuilder.buildValuesInsertionClause(
+			DatabaseSchema.Tables.DECKS,
+			DatabaseSchema.DecksColumns.TITLE,
+			DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX,
+			DatabaseSchema.DecksColumns.SHUFFLE_SEED));
+		this.deckUpdatingStatement = database.compileStatement(SqlBuilder.buildValuesUpdatingClause(
+			DatabaseSchema.Tables.DECKS,
+			DatabaseSchema.DecksColumns._ID,
+			DatabaseSchema.DecksColumns.TITLE,
+			DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX,
+			DatabaseSchema.DecksColumns.SHUFFLE_SEED));
+		this.cardInsertionStatement = database.compileStatement(SqlBuilder.buildValuesInsertionClause(
+			DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns.DECK_ID,
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.BACK_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.ORDER_INDEX));
+		this.cardUpdatingStatement = database.compileStatement(SqlBuilder.buildValuesUpdatingClause(
+			DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns._ID,
+			DatabaseSchema.CardsColumns.DECK_ID,
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.BACK_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.ORDER_INDEX));
+		this.deckDeletionStatement = database.compileStatement(SqlBuilder.buildDeletionClause(
+			DatabaseSchema.Tables.DECKS,
+			SqlBuilder.buildParameterSelectionClause(DatabaseSchema.DecksColumns._ID)));
+		this.deckCardsDeletionStatement = database.compileStatement(SqlBuilder.buildDeletionClause(
+			DatabaseSchema.Tables.CARDS,
+			SqlBuilder.buildParameterSelectionClause(DatabaseSchema.CardsColumns.DECK_ID)));
+		this.cardDeletionStatement = database.compileStatement(SqlBuilder.buildDeletionClause(
+			DatabaseSchema.Tables.CARDS,
+			SqlBuilder.buildParameterSelectionClause(DatabaseSchema.CardsColumns._ID)));
+
+		this.deckIds = new HashMap<>();
+		this.cardIds = new HashMap<>();
+		this.decksCards = new HashMap<>();
+	}
+
+	private MessageDigest buildContentDigest() {
+		try {
+			return MessageDigest.getInstance(CONTENT_DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void mergeDeck(long deckId, @NonNull String title, int currentCardIndex, long shuffleSeed) {
+		// Decks met before are changed by their ids, it happens when changes are replayed
+
+		if (deckIds.containsKey(deckId)) {
+			updateDeck(deckIds.get(deckId), title, currentCardIndex, shuffleSeed);
+			return;
+		}
+
+		// Titles are unique, so a deck with the same title is the same deck
+
+		Cursor deckCursor = database.query(DatabaseSchema.Tables.DECKS,
+			new String[] {
+				DatabaseSchema.DecksColumns._ID,
+				DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX,
+				DatabaseSchema.DecksColumns.SHUFFLE_SEED},
+			SqlBuilder.buildParameterSelectionClause(DatabaseSchema.DecksColumns.TITLE),
+			new String[] {title}, null, null, null);
+
+		try {
+			if (deckCursor.moveToFirst()) {
+				long mergedDeckId = deckCursor.getLong(0);
+
+				if ((deckCursor.getInt(1) == currentCardIndex) && (deckCursor.getLong(2) == shuffleSeed)) {
+					skippedRowsCount++;
+				} else {
+					updateDeck(mergedDeckId, title, currentCardIndex, shuffleSeed);
+				}
+
+				deckIds.put(deckId, mergedDeckId);
+			} else {
+				deckIds.put(deckId, insertDeck(title, currentCardIndex, shuffleSeed));
+			}
+		} finally {
+			deckCursor.close();
+		}
+	}
+
+	private void updateDeck(long deckId, String title, int currentCardIndex, long shuffleSeed) {
+		deckUpdatingStatement.clearBindings();
+
+		deckUpdatingStatement.bindString(1, title);
+		deckUpdatingStatement.bindLong(2, currentCardIndex);
+		deckUpdatingStatement.bindLong(3, shuffleSeed);
+		deckUpdatingStatement.bindLong(4, deckId);
+
+		try {
+			deckUpdatingStatement.execute();
+
+			updatedRowsCount++;
+		} catch (SQLiteConstraintException e) {
+			// Renamed to a title of another deck
+
+			skippedRowsCount++;
+		}
+	}
+
+	private long insertDeck(String title, int currentCardIndex, long shuffleSeed) {
+		deckInsertionStatement.clearBindings();
+
+		deckInsertionStatement.bindString(1, title);
+		deckInsertionStatement.bindLong(2, currentCardIndex);
+		deckInsertionStatement.bindLong(3, shuffleSeed);
+
+		long deckId = deckInsertionStatement.executeInsert();
+
+		// New decks have no cards to match against
+
+		decksCards.put(deckId, new HashMap<String, Deque<MergedCard>>());
+
+		insertedRowsCount++;
+
+		return deckId;
+	}
+
+	public void mergeCard(long cardId, long deckId, @NonNull String frontSideText, @NonNull String backSideText, int orderIndex) {
+		Long mergedDeckId = deckIds.get(deckId);
+
+		if (mergedDeckId == null) {
+			skippedRowsCount++;
+			return;
+		}
+
+		if (cardIds.containsKey(cardId)) {
+			updateCard(cardIds.get(cardId), mergedDeckId, frontSideText, backSideText, orderIndex);
+			return;
+		}
+
+		MergedCard mergedCard = pollDeckCard(mergedDeckId, buildContentHash(frontSideText, backSideText));
+
+		if (mergedCard == null) {
+			cardIds.put(cardId, insertCard(mergedDeckId, frontSideText, backSideText, orderIndex));
+			return;
+		}
+
+		if (mergedCard.orderIndex != orderIndex) {
+			updateCard(mergedCard.id, mergedDeckId, frontSideText, backSideText, orderIndex);
+		} else {
+			skippedRowsCount++;
+		}
+
+		cardIds.put(cardId, mergedCard.id);
+	}
+
+	private MergedCard pollDeckCard(long deckId, String contentHash) {
+		// Every imported card takes a single match, so duplicated cards are kept duplicated
+
+		Deque<MergedCard> deckCards = getDeckCards(deckId).get(contentHash);
+
+		if (deckCards == null) {
+			return null;
+		}
+
+		return deckCards.poll();
+	}
+
+	private Map<String, Deque<MergedCard>> getDeckCards(long deckId) {
+		if (!decksCards.containsKey(deckId)) {
+			decksCards.put(deckId, loadDeckCards(deckId));
+		}
+
+		return decksCards.get(deckId);
+	}
+
+	private Map<String, Deque<MergedCard>> loadDeckCards(long deckId) {
+		Map<String, Deque<MergedCard>> deckCards = new HashMap<>();
+
+		Cursor cardsCursor = database.query(DatabaseSchema.Tables.CARDS,
+			new String[] {
+				DatabaseSchema.CardsColumns._ID,
+				DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+				DatabaseSchema.CardsColumns.BACK_SIDE_TEXT,
+				DatabaseSchema.CardsColumns.ORDER_INDEX},
+			SqlBuilder.buildSelectionClause(DatabaseSchema.CardsColumns.DECK_ID, deckId),
+			null, null, null, null);
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				String contentHash = buildContentHash(cardsCursor.getString(1), cardsCursor.getString(2));
+
+				if (!deckCards.containsKey(contentHash)) {
+					deckCards.put(contentHash, new ArrayDeque<MergedCard>());
+				}
+
+				deckCards.get(contentHash).add(new MergedCard(cardsCursor.getLong(0), cardsCursor.getInt(3)));
+			}
+		} finally {
+			cardsCursor.close();
+		}
+
+		return deckCards;
+	}
+
+	private String buildContentHash(String frontSideText, String backSideText) {
+		contentDigest.update(frontSideText.getBytes(DatabaseBackupFormat.CHARSET));
+		contentDigest.update((byte) 0);
+		contentDigest.update(backSideText.getBytes(DatabaseBackupFormat.CHARSET));
+
+		return Base64.encodeToString(contentDigest.digest(), Base64.NO_WRAP);
+	}
+
+	private long insertCard(long deckId, String frontSideText, String backSideText, int orderIndex) {
+		cardInsertionStatement.clearBindings();
+
+		cardInsertionStatement.bindLong(1, deckId);
+		cardInsertionStatement.bindString(2, frontSideText);
+		cardInsertionStatement.bindString(3, backSideText);
+		cardInsertionStatement.bindLong(4, orderIndex);
+
+		long cardId = cardInsertionStatement.executeInsert();
+
+		insertedRowsCount++;
+
+		return cardId;
+	}
+
+	private void updateCard(long cardId, long deckId, String frontSideText, String backSideText, int orderIndex) {
+		cardUpdatingStatement.clearBindings();
+
+		cardUpdatingStatement.bindLong(1, deckId);
+		cardUpdatingStatement.bindString(2, frontSideText);
+		cardUpdatingStatement.bindString(3, backSideText);
+		cardUpdatingStatement.bindLong(4, orderIndex);
+		cardUpdatingStatement.bindLong(5, cardId);
+
+		cardUpdatingStatement.execute();
+
+		updatedRowsCount++;
+	}
+
+	public void deleteDeck(long deckId) {
+		Long mergedDeckId = deckIds.remove(deckId);
+
+		if (mergedDeckId == null) {
+			skippedRowsCount++;
+			return;
+		}
+
+		// Foreign keys are not enforced, so cards are deleted explicitly
+
+		deckCardsDeletionStatement.bindLong(1, mergedDeckId);
+		deckCardsDeletionStatement.execute();
+
+		deckDeletionStatement.bindLong(1, mergedDeckId);
+		deckDeletionStatement.execute();
+
+		decksCards.remove(mergedDeckId);
+
+		deletedRowsCount++;
+	}
+
+	public void deleteCard(long cardId) {
+		Long mergedCardId = cardIds.remove(cardId);
+
+		if (mergedCardId == null) {
+			skippedRowsCount++;
+			return;
+		}
+
+		cardDeletionStatement.bindLong(1, mergedCardId);
+		cardDeletionStatement.execute();
+
+		deletedRowsCount++;
+	}
+
+	public DatabaseMergeReport getReport() {
+		return new DatabaseMergeReport(insertedRowsCount, updatedRowsCount, deletedRowsCount, skippedRowsCount);
+	}
+
+	public void close() {
+		deckInsertionStatement.close();
+		deckUpdatingStatement.close();
+		cardInsertionStatement.close();
+		cardUpdatingStatement.close();
+		deckDeletionStatement.close();
+		deckCardsDeletionStatement.close();
+		cardDeletionStatement.close();
+	}
+}
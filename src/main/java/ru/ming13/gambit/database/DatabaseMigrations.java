@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.database;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import ru.ming13.gambit.util.SqlBuilder;
+
+final class DatabaseMigrations
+{
+	private final SQLiteDatabase database;
+
+	public static DatabaseMigrations at(@NonNull SQLiteDatabase database) {
+		return new DatabaseMigrations(database);
+	}
+
+	private DatabaseMigrations(SQLiteDatabase database) {
+		this.database = database;
+	}
+
+	public void migrate(int oldDatabaseVersion, int newDatabaseVersion) {
+		// Versions before the legacy one were never released with a different schema
+
+		int databaseVersion = Math.max(oldDatabaseVersion, DatabaseSchema.Versions.LEGACY);
+
+		while (databaseVersion < newDatabaseVersion) {
+			databaseVersion++;
+
+			migrate(databaseVersion);
+		}
+	}
+
+	private void migrate(int databaseVersion) {
+		switch (databaseVersion) {
+			case DatabaseSchema.Versions.SHUFFLE_SEEDS:
+				migrateToShuffleSeeds();
+				break;
+
+			case DatabaseSchema.Versions.CARDS_INDICES:
+				migrateToCardsIndices();
+				break;
+
+			case DatabaseSchema.Versions.CARDS_SEARCH:
+				migrateToCardsSearch();
+				break;
+
+			case DatabaseSchema.Versions.CHANGES_JOURNAL:
+				migrateToChangesJournal();
+				break;
+
+			default:
+				throw new IllegalArgumentException(String.format("Unsupported database version: %d", databaseVersion));
+		}
+	}
+
+	private void migrateToShuffleSeeds() {
+		database.execSQL(SqlBuilder.buildColumnAdditionClause(DatabaseSchema.Tables.DECKS,
+			SqlBuilder.buildColumnDescription(
+				DatabaseSchema.DecksColumns.SHUFFLE_SEED, DatabaseSchema.DecksColumnsParameters.SHUFFLE_SEED)));
+
+		// Keep decks shuffled before the upgrade shuffled, but with a seed instead of stored indices
+
+		database.execSQL(SqlBuilder.buildUpdatingClause(
+			DatabaseSchema.Tables.DECKS,
+			SqlBuilder.buildRandomAssignment(DatabaseSchema.DecksColumns.SHUFFLE_SEED),
+			SqlBuilder.buildSubquerySelectionClause(
+				DatabaseSchema.DecksColumns._ID,
+				DatabaseSchema.CardsColumns.DECK_ID,
+				DatabaseSchema.Tables.CARDS,
+				SqlBuilder.buildInequalityClause(DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumnsDefaultValues.ORDER_INDEX))));
+
+		ContentValues cardValues = new ContentValues();
+		cardValues.put(DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumnsDefaultValues.ORDER_INDEX);
+
+		database.update(DatabaseSchema.Tables.CARDS, cardValues, null, null);
+	}
+
+	private void migrateToCardsIndices() {
+		database.execSQL(SqlBuilder.buildIndexCreationClause(DatabaseSchema.Indices.CARDS_ORDER, DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns.DECK_ID, DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT));
+		database.execSQL(SqlBuilder.buildIndexCreationClause(DatabaseSchema.Indices.CARDS_FRONT_SIDE, DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns.DECK_ID, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT));
+	}
+
+	private void migrateToCardsSearch() {
+		DatabaseSearch cardsSearch = DatabaseSearch.at(database);
+
+		cardsSearch.create();
+		cardsSearch.fill();
+	}
+
+	private void migrateToChangesJournal() {
+		// Existing rows are in the next full backup, the journal starts empty
+
+		DatabaseJournal.at(database).create();
+	}
+}
@@ -17,6 +17,7 @@
 package ru.ming13.gambit.database;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.support.annotation.NonNull;
@@ -25,21 +26,70 @@ import ru.ming13.gambit.util.SqlBuilder;
 
 public class DatabaseOpenHelper extends SQLiteOpenHelper
 {
+	private enum JournalMode
+	{
+		ROLLBACK, WRITE_AHEAD
+	}
+
 	private final Context context;
+	private final JournalMode journalMode;
 
 	public DatabaseOpenHelper(@NonNull Context context) {
-		this(context, DatabaseSchema.DATABASE_NAME);
+		this(context, DatabaseSchema.DATABASE_NAME, JournalMode.WRITE_AHEAD);
 	}
 
 	public DatabaseOpenHelper(@NonNull Context context, @NonNull String databasePath) {
+		this(context, databasePath, JournalMode.ROLLBACK);
+	}
+
+	private DatabaseOpenHelper(Context context, String databasePath, JournalMode journalMode) {
 		super(context, databasePath, null, DatabaseSchema.Versions.CURRENT);
 
 		this.context = context.getApplicationContext();
+		this.journalMode = journalMode;
+	}
+
+	@Override
+	public void onOpen(SQLiteDatabase database) {
+		super.onOpen(database);
+
+		if ((journalMode == JournalMode.WRITE_AHEAD) && !database.isReadOnly()) {
+			setUpWriteAheadLogging(database);
+		}
+	}
+
+	private void setUpWriteAheadLogging(SQLiteDatabase database) {
+		// Readers keep going while a long transaction writes, the log is folded back every N pages
+
+		if (database.enableWriteAheadLogging()) {
+			executePragma(database, SqlBuilder.buildAutoCheckpointClause(DatabaseSchema.Checkpoints.AUTO_PAGES_COUNT));
+		}
+	}
+
+	private void executePragma(SQLiteDatabase database, String pragma) {
+		Cursor pragmaCursor = database.rawQuery(pragma, null);
+
+		try {
+			pragmaCursor.moveToFirst();
+		} finally {
+			pragmaCursor.close();
+		}
+	}
+
+	public void checkpointPassively() {
+		checkpoint(DatabaseSchema.Checkpoints.MODE_PASSIVE);
+	}
+
+	private void checkpoint(String checkpointMode) {
+		executePragma(getWritableDatabase(), SqlBuilder.buildCheckpointClause(checkpointMode));
 	}
 
 	@Override
 	public void onCreate(SQLiteDatabase database) {
 		createTables(database);
+		createIndices(database);
+		createSearch(database);
+		createJournal(database);
 
 		createDefaults(database);
 	}
@@ -60,7 +110,9 @@ public class DatabaseOpenHelper extends SQLiteOpenHelper
 			SqlBuilder.buildColumnDescription(
 				DatabaseSchema.DecksColumns.TITLE, DatabaseSchema.DecksColumnsParameters.TITLE),
 			SqlBuilder.buildColumnDescription(
-				DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX, DatabaseSchema.DecksColumnsParameters.CURRENT_CARD_INDEX));
+				DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX, DatabaseSchema.DecksColumnsParameters.CURRENT_CARD_INDEX),
+			SqlBuilder.buildColumnDescription(
+				DatabaseSchema.DecksColumns.SHUFFLE_SEED, DatabaseSchema.DecksColumnsParameters.SHUFFLE_SEED));
 	}
 
 	private String buildCardsTableDescription() {
@@ -77,11 +129,27 @@ public class DatabaseOpenHelper extends SQLiteOpenHelper
 				DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumnsParameters.ORDER_INDEX));
 	}
 
+	private void createIndices(SQLiteDatabase database) {
+		database.execSQL(SqlBuilder.buildIndexCreationClause(DatabaseSchema.Indices.CARDS_ORDER, DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns.DECK_ID, DatabaseSchema.CardsColumns.ORDER_INDEX, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT));
+		database.execSQL(SqlBuilder.buildIndexCreationClause(DatabaseSchema.Indices.CARDS_FRONT_SIDE, DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns.DECK_ID, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT));
+	}
+
+	private void createSearch(SQLiteDatabase database) {
+		DatabaseSearch.at(database).create();
+	}
+
+	private void createJournal(SQLiteDatabase database) {
+		DatabaseJournal.at(database).create();
+	}
+
 	private void createDefaults(SQLiteDatabase database) {
 		DatabaseDefaults.at(context, database).writeDeck();
 	}
 
 	@Override
 	public void onUpgrade(SQLiteDatabase database, int oldDatabaseVersion, int newDatabaseVersion) {
+		DatabaseMigrations.at(database).migrate(oldDatabaseVersion, newDatabaseVersion);
 	}
 }
@@ -17,22 +17,29 @@
 package ru.ming13.gambit.database;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.annotation.NonNull;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-
-import ru.ming13.gambit.util.SqlBuilder;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
 
 public class DatabaseOperator
 {
-	private static final String DATABASE_ALIAS = "db";
+	public static final long UNKNOWN_POSITION = -1;
+
 	private static final String DATABASE_PREFIX = "database";
+	private static final String SNAPSHOT_PREFIX = "snapshot";
 
 	private final Context context;
 
@@ -45,30 +52,186 @@ public class DatabaseOperator
 	}
 
 	public void writeDatabaseContents(@NonNull OutputStream databaseContentsStream) {
+		File snapshotDatabaseFile = getSnapshotDatabaseFile();
+
+		SQLiteDatabase snapshotDatabase = SQLiteDatabase.openOrCreateDatabase(snapshotDatabaseFile, null);
+
+		try {
+			long journalPosition = writeSnapshotDatabaseContents(snapshotDatabase);
+
+			// The snapshot is streamed without holding the database
+
+			DatabaseBackupWriter.of(snapshotDatabase).writeBase(databaseContentsStream, journalPosition);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			snapshotDatabase.close();
+
+			snapshotDatabaseFile.delete();
+		}
+	}
+
+	private File getSnapshotDatabaseFile() {
+		try {
+			return File.createTempFile(SNAPSHOT_PREFIX, null, context.getCacheDir());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private long writeSnapshotDatabaseContents(SQLiteDatabase snapshotDatabase) {
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(context);
+
+		try {
+			SQLiteDatabase database = openReadOnlyDatabase(databaseHelper);
+
+			try {
+				return DatabaseSnapshot.at(snapshotDatabase).fill(database);
+			} finally {
+				database.close();
+			}
+		} finally {
+			databaseHelper.close();
+		}
+	}
+
+	private SQLiteDatabase openReadOnlyDatabase(DatabaseOpenHelper databaseHelper) {
+		// The helper creates and migrates the database, rows are read through a separate connection
+
+		String databasePath = databaseHelper.getWritableDatabase().getPath();
+
+		return SQLiteDatabase.openDatabase(databasePath, null, SQLiteDatabase.OPEN_READONLY);
+	}
+
+	public long readDatabaseContentsPosition(@NonNull InputStream databaseContentsStream) {
+		// Each backup segment knows up to which journal point it has changes,
+		// legacy and damaged backups have no known point and cannot be extended
+
+		try {
+			return readJournalPosition(databaseContentsStream);
+		} catch (IOException e) {
+			return UNKNOWN_POSITION;
+		}
+	}
+
+	public boolean isDatabaseChanged(long databaseContentsPosition) {
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(context);
+
+		try {
+			return DatabaseJournal.at(databaseHelper.getReadableDatabase()).getPosition() != databaseContentsPosition;
+		} finally {
+			databaseHelper.close();
+		}
+	}
+
+	public boolean writeDatabaseChanges(long databaseContentsPosition, @NonNull OutputStream databaseChangesStream) {
+		// Changes are appended to an existing backup as a segment
+
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(context);
+
+		try {
+			SQLiteDatabase database = openReadOnlyDatabase(databaseHelper);
+
+			try {
+				return DatabaseBackupWriter.of(database).writeChanges(databaseChangesStream, databaseContentsPosition);
+			} finally {
+				database.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			databaseHelper.close();
+		}
+	}
+
+	private long readJournalPosition(InputStream databaseContentsStream) throws IOException {
+		PushbackInputStream segmentsStream = new PushbackInputStream(new BufferedInputStream(databaseContentsStream));
+
+		DatabaseBackupSegment segment = DatabaseBackupSegment.read(segmentsStream);
+
+		if (segment == null) {
+			throw new IOException("Backup is empty");
+		}
+
+		while (true) {
+			// Segments contents are skipped, only the last header is needed
+
+			new ChunkedInputStream(segmentsStream).close();
+
+			DatabaseBackupSegment nextSegment = DatabaseBackupSegment.read(segmentsStream);
+
+			if (nextSegment == null) {
+				return segment.getJournalPosition();
+			}
+
+			segment = nextSegment;
+		}
+	}
+
+	public DatabaseMergeReport readDatabaseContents(@NonNull InputStream databaseContentsStream, long databaseContentsLength, @NonNull DatabaseProgressListener progressListener) {
+		CountingInputStream countingContentsStream = new CountingInputStream(databaseContentsStream);
+		BufferedInputStream bufferedContentsStream = new BufferedInputStream(countingContentsStream);
+
+		DatabaseProgressReporter progressReporter = DatabaseProgressReporter.of(countingContentsStream, databaseContentsLength, progressListener);
+
 		try {
-			FileUtils.copyFile(getDatabaseFile(), databaseContentsStream);
+			if (isLegacyDatabaseContents(bufferedContentsStream)) {
+				return readLegacyDatabaseContents(bufferedContentsStream, progressReporter);
+			} else {
+				return readBackupDatabaseContents(bufferedContentsStream, progressReporter);
+			}
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	private File getDatabaseFile() {
-		return context.getDatabasePath(DatabaseSchema.DATABASE_NAME).getAbsoluteFile();
+	private boolean isLegacyDatabaseContents(BufferedInputStream databaseContentsStream) throws IOException {
+		// Backups were raw database files before
+
+		byte[] legacyHeader = DatabaseBackupFormat.LEGACY_HEADER.getBytes(DatabaseBackupFormat.CHARSET);
+		byte[] contentsHeader = new byte[legacyHeader.length];
+
+		databaseContentsStream.mark(contentsHeader.length);
+
+		int contentsHeaderLength = IOUtils.read(databaseContentsStream, contentsHeader);
+
+		databaseContentsStream.reset();
+
+		return (contentsHeaderLength == contentsHeader.length) && Arrays.equals(legacyHeader, contentsHeader);
+	}
+
+	private DatabaseMergeReport readBackupDatabaseContents(InputStream databaseContentsStream, DatabaseProgressReporter progressReporter) throws IOException {
+		// Records are applied straight from the stream, without a temporary file
+
+		DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(context);
+
+		try {
+			DatabaseMergeReport mergeReport = DatabaseBackupReader.of(databaseHelper.getWritableDatabase(), progressReporter).read(databaseContentsStream);
+
+			databaseHelper.checkpointPassively();
+
+			return mergeReport;
+		} finally {
+			databaseHelper.close();
+		}
 	}
 
-	public void readDatabaseContents(@NonNull InputStream databaseContentsStream) {
+	private DatabaseMergeReport readLegacyDatabaseContents(InputStream databaseContentsStream, DatabaseProgressReporter progressReporter) {
+		// Database files cannot be opened from a stream, so legacy backups still go through a file
+
 		File sourceDatabaseFile = getDatabaseFile(databaseContentsStream);
 
 		SQLiteDatabase sourceDatabase = new DatabaseOpenHelper(context, sourceDatabaseFile.getAbsolutePath()).getReadableDatabase();
 		SQLiteDatabase destinationDatabase = new DatabaseOpenHelper(context).getWritableDatabase();
 
-		deleteDatabaseContents(destinationDatabase);
-		insertDatabaseContents(destinationDatabase, sourceDatabaseFile);
-
-		sourceDatabase.close();
-		destinationDatabase.close();
+		try {
+			return mergeDatabaseContents(destinationDatabase, sourceDatabase, progressReporter);
+		} finally {
+			sourceDatabase.close();
+			destinationDatabase.close();
 
-		sourceDatabaseFile.delete();
+			sourceDatabaseFile.delete();
+		}
 	}
 
 	private File getDatabaseFile(InputStream databaseContentsStream) {
@@ -83,33 +246,55 @@ public class DatabaseOperator
 		}
 	}
 
-	private void deleteDatabaseContents(SQLiteDatabase database) {
+	private DatabaseMergeReport mergeDatabaseContents(SQLiteDatabase destinationDatabase, SQLiteDatabase sourceDatabase, DatabaseProgressReporter progressReporter) {
+		DatabaseMerger databaseMerger = DatabaseMerger.at(destinationDatabase);
+
+		long decksCount = DatabaseUtils.queryNumEntries(sourceDatabase, DatabaseSchema.Tables.DECKS);
+		long cardsCount = DatabaseUtils.queryNumEntries(sourceDatabase, DatabaseSchema.Tables.CARDS);
+
 		try {
-			database.beginTransaction();
+			destinationDatabase.beginTransaction();
 
-			database.execSQL(SqlBuilder.buildDeletionClause(DatabaseSchema.Tables.CARDS));
-			database.execSQL(SqlBuilder.buildDeletionClause(DatabaseSchema.Tables.DECKS));
+			mergeDecks(databaseMerger, sourceDatabase, progressReporter, decksCount + cardsCount);
+			mergeCards(databaseMerger, sourceDatabase, progressReporter, decksCount + cardsCount, decksCount);
 
-			database.setTransactionSuccessful();
+			destinationDatabase.setTransactionSuccessful();
+
+			return databaseMerger.getReport();
 		} finally {
-			database.endTransaction();
+			destinationDatabase.endTransaction();
+
+			databaseMerger.close();
 		}
 	}
 
-	private void insertDatabaseContents(SQLiteDatabase database, File databaseFile) {
-		database.execSQL(SqlBuilder.buildAttachingClause(databaseFile.getAbsolutePath(), DATABASE_ALIAS));
+	private void mergeDecks(DatabaseMerger databaseMerger, SQLiteDatabase sourceDatabase, DatabaseProgressReporter progressReporter, long rowsCount) {
+		Cursor decksCursor = sourceDatabase.query(DatabaseSchema.Tables.DECKS, DatabaseBackupFormat.DECKS_COLUMNS,
+			null, null, null, null, null);
 
 		try {
-			database.beginTransaction();
-
-			database.execSQL(SqlBuilder.buildInsertionClause(DatabaseSchema.Tables.DECKS, DATABASE_ALIAS));
-			database.execSQL(SqlBuilder.buildInsertionClause(DatabaseSchema.Tables.CARDS, DATABASE_ALIAS));
+			while (decksCursor.moveToNext()) {
+				databaseMerger.mergeDeck(decksCursor.getLong(0), decksCursor.getString(1), decksCursor.getInt(2), decksCursor.getLong(3));
 
-			database.setTransactionSuccessful();
+				progressReporter.report(decksCursor.getPosition() + 1, rowsCount);
+			}
 		} finally {
-			database.endTransaction();
+			decksCursor.close();
 		}
+	}
+
+	private void mergeCards(DatabaseMerger databaseMerger, SQLiteDatabase sourceDatabase, DatabaseProgressReporter progressReporter, long rowsCount, long processedRowsCount) {
+		Cursor cardsCursor = sourceDatabase.query(DatabaseSchema.Tables.CARDS, DatabaseBackupFormat.CARDS_COLUMNS,
+			null, null, null, null, null);
+
+		try {
+			while (cardsCursor.moveToNext()) {
+				databaseMerger.mergeCard(cardsCursor.getLong(0), cardsCursor.getLong(1), cardsCursor.getString(2), cardsCursor.getString(3), cardsCursor.getInt(4));
 
-		database.execSQL(SqlBuilder.buildDetachingClause(DATABASE_ALIAS));
+				progressReporter.report(processedRowsCount + cardsCursor.getPosition() + 1, rowsCount);
+			}
+		} finally {
+			cardsCursor.close();
+		}
 	}
 }
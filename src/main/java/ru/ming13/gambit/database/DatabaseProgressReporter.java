@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.support.annotation.NonNull;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+final class DatabaseProgressReporter
+{
+	private static final int ROWS_CHUNK_SIZE = 500;
+
+	private final CountingInputStream contentsStream;
+	private final long contentsLength;
+
+	private final DatabaseProgressListener progressListener;
+
+	public static DatabaseProgressReporter of(@NonNull CountingInputStream contentsStream, long contentsLength, @NonNull DatabaseProgressListener progressListener) {
+		return new DatabaseProgressReporter(contentsStream, contentsLength, progressListener);
+	}
+
+	private DatabaseProgressReporter(CountingInputStream contentsStream, long contentsLength, DatabaseProgressListener progressListener) {
+		this.contentsStream = contentsStream;
+		this.contentsLength = contentsLength;
+
+		this.progressListener = progressListener;
+	}
+
+	public void report(long processedRowsCount, long rowsCount) {
+		// Rows are reported in chunks to keep listeners off the hot path
+
+		if ((processedRowsCount % ROWS_CHUNK_SIZE == 0) || (processedRowsCount == rowsCount)) {
+			progressListener.onProgress(processedRowsCount, rowsCount, contentsStream.getByteCount(), contentsLength);
+		}
+	}
+}
@@ -25,12 +25,29 @@ public final class DatabaseSchema
 
 	static final String DATABASE_NAME = "gambit.db";
 
+	static final class Checkpoints
+	{
+		private Checkpoints() {
+		}
+
+		public static final int AUTO_PAGES_COUNT = 1000;
+
+		public static final String MODE_PASSIVE = "passive";
+	}
+
 	static final class Versions
 	{
 		private Versions() {
 		}
 
-		public static final int CURRENT = 4;
+		public static final int LEGACY = 4;
+
+		public static final int SHUFFLE_SEEDS = 5;
+		public static final int CARDS_INDICES = 6;
+		public static final int CARDS_SEARCH = 7;
+		public static final int CHANGES_JOURNAL = 8;
+
+		public static final int CURRENT = CHANGES_JOURNAL;
 	}
 
 	public static final class Tables
@@ -40,6 +57,42 @@ public final class DatabaseSchema
 
 		public static final String DECKS = "Decks";
 		public static final String CARDS = "Cards";
+		public static final String CARDS_SEARCH = "CardsSearch";
+		public static final String CHANGES = "Changes";
+	}
+
+	static final class Indices
+	{
+		private Indices() {
+		}
+
+		public static final String CARDS_ORDER = "CardsOrder";
+		public static final String CARDS_FRONT_SIDE = "CardsFrontSide";
+	}
+
+	static final class Triggers
+	{
+		private Triggers() {
+		}
+
+		public static final String CARDS_SEARCH_INSERTION = "CardsSearchInsertion";
+		public static final String CARDS_SEARCH_UPDATING = "CardsSearchUpdating";
+		public static final String CARDS_SEARCH_DELETION = "CardsSearchDeletion";
+
+		public static final String DECKS_INSERTION_JOURNAL = "DecksInsertionJournal";
+		public static final String DECKS_UPDATING_JOURNAL = "DecksUpdatingJournal";
+		public static final String DECKS_DELETION_JOURNAL = "DecksDeletionJournal";
+		public static final String CARDS_INSERTION_JOURNAL = "CardsInsertionJournal";
+		public static final String CARDS_UPDATING_JOURNAL = "CardsUpdatingJournal";
+		public static final String CARDS_DELETION_JOURNAL = "CardsDeletionJournal";
+	}
+
+	static final class Modules
+	{
+		private Modules() {
+		}
+
+		public static final String FULL_TEXT_SEARCH = "fts4";
 	}
 
 	public static final class DecksColumns implements BaseColumns
@@ -49,6 +102,7 @@ public final class DatabaseSchema
 
 		public static final String TITLE = "title";
 		public static final String CURRENT_CARD_INDEX = "current_card_index";
+		public static final String SHUFFLE_SEED = "shuffle_seed";
 	}
 
 	static final class DecksColumnsParameters
@@ -59,6 +113,7 @@ public final class DatabaseSchema
 		public static final String _ID = "integer primary key autoincrement not null unique";
 		public static final String TITLE = "text not null unique";
 		public static final String CURRENT_CARD_INDEX = "int not null";
+		public static final String SHUFFLE_SEED = "integer not null default 0";
 	}
 
 	public static final class DecksColumnsDefaultValues
@@ -67,6 +122,7 @@ public final class DatabaseSchema
 		}
 
 		public static final int CURRENT_CARD_INDEX = 0;
+		public static final long SHUFFLE_SEED = 0;
 	}
 
 	public static final class CardsColumns implements BaseColumns
@@ -99,4 +155,33 @@ public final class DatabaseSchema
 
 		public static final int ORDER_INDEX = 0;
 	}
+
+	public static final class CardsSearchColumns
+	{
+		private CardsSearchColumns() {
+		}
+
+		public static final String DOCUMENT_ID = "docid";
+		public static final String FRONT_SIDE_TEXT = CardsColumns.FRONT_SIDE_TEXT;
+		public static final String BACK_SIDE_TEXT = CardsColumns.BACK_SIDE_TEXT;
+	}
+
+	static final class ChangesColumns implements BaseColumns
+	{
+		private ChangesColumns() {
+		}
+
+		public static final String TABLE_NAME = "table_name";
+		public static final String ROW_ID = "row_id";
+	}
+
+	static final class ChangesColumnsParameters
+	{
+		private ChangesColumnsParameters() {
+		}
+
+		public static final String _ID = "integer primary key autoincrement not null unique";
+		public static final String TABLE_NAME = "text not null";
+		public static final String ROW_ID = "integer not null";
+	}
 }
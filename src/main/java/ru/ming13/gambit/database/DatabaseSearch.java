@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import ru.ming13.gambit.util.SqlBuilder;
+
+final class DatabaseSearch
+{
+	private static final class Events
+	{
+		private Events() {
+		}
+
+		public static final String INSERTION = "insert";
+		public static final String UPDATING = "update of %s";
+		public static final String DELETION = "delete";
+	}
+
+	private static final class Rows
+	{
+		private Rows() {
+		}
+
+		public static final String NEW = "new";
+		public static final String OLD = "old";
+	}
+
+	private static final String[] SEARCH_COLUMNS = {
+		DatabaseSchema.CardsSearchColumns.DOCUMENT_ID,
+		DatabaseSchema.CardsSearchColumns.FRONT_SIDE_TEXT,
+		DatabaseSchema.CardsSearchColumns.BACK_SIDE_TEXT
+	};
+
+	private static final String[] CARDS_COLUMNS = {
+		DatabaseSchema.CardsColumns._ID,
+		DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+		DatabaseSchema.CardsColumns.BACK_SIDE_TEXT
+	};
+
+	private final SQLiteDatabase database;
+
+	public static DatabaseSearch at(@NonNull SQLiteDatabase database) {
+		return new DatabaseSearch(database);
+	}
+
+	private DatabaseSearch(SQLiteDatabase database) {
+		this.database = database;
+	}
+
+	public void create() {
+		createTable();
+		createTriggers();
+	}
+
+	private void createTable() {
+		// Document ids of the search table are the same as cards ids
+
+		database.execSQL(SqlBuilder.buildVirtualTableCreationClause(
+			DatabaseSchema.Tables.CARDS_SEARCH,
+			DatabaseSchema.Modules.FULL_TEXT_SEARCH,
+			SqlBuilder.buildTableDescription(
+				DatabaseSchema.CardsSearchColumns.FRONT_SIDE_TEXT,
+				DatabaseSchema.CardsSearchColumns.BACK_SIDE_TEXT)));
+	}
+
+	private void createTriggers() {
+		createTrigger(DatabaseSchema.Triggers.CARDS_SEARCH_INSERTION, Events.INSERTION,
+			SqlBuilder.buildRowInsertionClause(DatabaseSchema.Tables.CARDS_SEARCH,
+				SEARCH_COLUMNS, buildRowReferences(Rows.NEW, CARDS_COLUMNS)));
+
+		createTrigger(DatabaseSchema.Triggers.CARDS_SEARCH_UPDATING, buildUpdatingEvent(),
+			SqlBuilder.buildUpdatingClause(DatabaseSchema.Tables.CARDS_SEARCH,
+				SqlBuilder.buildAssignment(
+					new String[] {DatabaseSchema.CardsSearchColumns.FRONT_SIDE_TEXT, DatabaseSchema.CardsSearchColumns.BACK_SIDE_TEXT},
+					buildRowReferences(Rows.NEW, DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT, DatabaseSchema.CardsColumns.BACK_SIDE_TEXT)),
+				buildDocumentSelectionClause(Rows.NEW)));
+
+		createTrigger(DatabaseSchema.Triggers.CARDS_SEARCH_DELETION, Events.DELETION,
+			SqlBuilder.buildDeletionClause(DatabaseSchema.Tables.CARDS_SEARCH,
+				buildDocumentSelectionClause(Rows.OLD)));
+	}
+
+	private void createTrigger(String trigger, String event, String statement) {
+		database.execSQL(SqlBuilder.buildTriggerCreationClause(trigger, event, DatabaseSchema.Tables.CARDS, statement));
+	}
+
+	private String buildUpdatingEvent() {
+		return String.format(Events.UPDATING, SqlBuilder.buildTableDescription(
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT, DatabaseSchema.CardsColumns.BACK_SIDE_TEXT));
+	}
+
+	private String buildDocumentSelectionClause(String row) {
+		return SqlBuilder.buildEqualityClause(DatabaseSchema.CardsSearchColumns.DOCUMENT_ID,
+			SqlBuilder.buildRowReference(row, DatabaseSchema.CardsColumns._ID));
+	}
+
+	private String[] buildRowReferences(String row, String... fields) {
+		String[] rowReferences = new String[fields.length];
+
+		for (int fieldPosition = 0; fieldPosition < fields.length; fieldPosition++) {
+			rowReferences[fieldPosition] = SqlBuilder.buildRowReference(row, fields[fieldPosition]);
+		}
+
+		return rowReferences;
+	}
+
+	public void fill() {
+		database.execSQL(SqlBuilder.buildSelectionInsertionClause(
+			DatabaseSchema.Tables.CARDS_SEARCH, SEARCH_COLUMNS, DatabaseSchema.Tables.CARDS, CARDS_COLUMNS));
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ru.ming13.gambit.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+
+import ru.ming13.gambit.util.SqlBuilder;
+
+final class DatabaseSnapshot
+{
+	private static final String SAVEPOINT = "snapshot";
+
+	private final SQLiteDatabase snapshotDatabase;
+
+	public static DatabaseSnapshot at(@NonNull SQLiteDatabase snapshotDatabase) {
+		return new DatabaseSnapshot(snapshotDatabase);
+	}
+
+	private DatabaseSnapshot(SQLiteDatabase snapshotDatabase) {
+		this.snapshotDatabase = snapshotDatabase;
+	}
+
+	public long fill(@NonNull SQLiteDatabase database) {
+		// A fresh database has no free pages and needs only columns which are backed up
+
+		createTable(DatabaseSchema.Tables.DECKS, DatabaseBackupFormat.DECKS_COLUMNS);
+		createTable(DatabaseSchema.Tables.CARDS, DatabaseBackupFormat.CARDS_COLUMNS);
+
+		// A savepoint opens a deferred transaction, on a read-only connection it only pins
+		// a read snapshot of the log, so neither readers nor writers wait for the copy
+
+		database.execSQL(SqlBuilder.buildSavepointClause(SAVEPOINT));
+
+		try {
+			snapshotDatabase.beginTransaction();
+
+			try {
+				copyTable(database, DatabaseSchema.Tables.DECKS, DatabaseBackupFormat.DECKS_COLUMNS);
+				copyTable(database, DatabaseSchema.Tables.CARDS, DatabaseBackupFormat.CARDS_COLUMNS);
+
+				snapshotDatabase.setTransactionSuccessful();
+
+				// Changes after this point go to following backup segments
+
+				return DatabaseJournal.at(database).getPosition();
+			} finally {
+				snapshotDatabase.endTransaction();
+			}
+		} finally {
+			database.execSQL(SqlBuilder.buildSavepointReleasingClause(SAVEPOINT));
+		}
+	}
+
+	private void createTable(String table, String[] columns) {
+		snapshotDatabase.execSQL(SqlBuilder.buildTableCreationClause(table, SqlBuilder.buildTableDescription(columns)));
+	}
+
+	private void copyTable(SQLiteDatabase database, String table, String[] columns) {
+		SQLiteStatement rowInsertionStatement = snapshotDatabase.compileStatement(SqlBuilder.buildValuesInsertionClause(table, columns));
+
+		Cursor rowsCursor = database.query(table, columns, null, null, null, null, null);
+
+		try {
+			while (rowsCursor.moveToNext()) {
+				rowInsertionStatement.clearBindings();
+
+				for (int columnPosition = 0; columnPosition < columns.length; columnPosition++) {
+					bindColumn(rowInsertionStatement, rowsCursor, columnPosition);
+				}
+
+				rowInsertionStatement.executeInsert();
+			}
+		} finally {
+			rowsCursor.close();
+
+			rowInsertionStatement.close();
+		}
+	}
+
+	private void bindColumn(SQLiteStatement rowInsertionStatement, Cursor rowsCursor, int columnPosition) {
+		int bindingPosition = columnPosition + 1;
+
+		switch (rowsCursor.getType(columnPosition)) {
+			case Cursor.FIELD_TYPE_INTEGER:
+				rowInsertionStatement.bindLong(bindingPosition, rowsCursor.getLong(columnPosition));
+				break;
+
+			case Cursor.FIELD_TYPE_NULL:
+				rowInsertionStatement.bindNull(bindingPosition);
+				break;
+
+			default:
+				rowInsertionStatement.bindString(bindingPosition, rowsCursor.getString(columnPosition));
+				break;
+		}
+	}
+}
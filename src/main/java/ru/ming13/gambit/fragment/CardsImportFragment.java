@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.fragment;
+
+import android.app.Fragment;
+import android.net.Uri;
+import android.os.Bundle;
+
+import com.f2prateek.dart.Dart;
+import com.f2prateek.dart.InjectExtra;
+import com.squareup.otto.Produce;
+import com.squareup.otto.Subscribe;
+
+import ru.ming13.gambit.bus.BusProvider;
+import ru.ming13.gambit.bus.CardsImportProgressEvent;
+import ru.ming13.gambit.bus.CardsImportedEvent;
+import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.task.CardsImportingTask;
+import ru.ming13.gambit.util.Fragments;
+
+public class CardsImportFragment extends Fragment
+{
+	public static final String TAG = "cards_import";
+
+	@InjectExtra(Fragments.Arguments.DECK)
+	Deck deck;
+
+	@InjectExtra(Fragments.Arguments.FILE_URI)
+	Uri cardsFileUri;
+
+	private CardsImportingTask cardsImportingTask;
+
+	private CardsImportProgressEvent cardsImportProgressEvent;
+	private CardsImportedEvent cardsImportedEvent;
+
+	@Override
+	public void onCreate(Bundle savedInstanceState) {
+		super.onCreate(savedInstanceState);
+
+		// The import outlives configuration changes and keeps events the list was not there to receive
+
+		setRetainInstance(true);
+
+		setUpInjections();
+
+		BusProvider.getBus().register(this);
+
+		startCardsImport();
+	}
+
+	private void setUpInjections() {
+		Dart.inject(this);
+	}
+
+	private void startCardsImport() {
+		cardsImportingTask = CardsImportingTask.execute(getActivity().getContentResolver(), deck, cardsFileUri);
+	}
+
+	public void cancelCardsImport() {
+		cardsImportingTask.cancel(false);
+	}
+
+	@Subscribe
+	public void onCardsImportProgress(CardsImportProgressEvent event) {
+		this.cardsImportProgressEvent = event;
+	}
+
+	@Subscribe
+	public void onCardsImported(CardsImportedEvent event) {
+		this.cardsImportedEvent = event;
+	}
+
+	@Produce
+	public CardsImportProgressEvent produceCardsImportProgress() {
+		return cardsImportProgressEvent;
+	}
+
+	@Produce
+	public CardsImportedEvent produceCardsImported() {
+		return cardsImportedEvent;
+	}
+
+	@Override
+	public void onDestroy() {
+		super.onDestroy();
+
+		BusProvider.getBus().unregister(this);
+	}
+}
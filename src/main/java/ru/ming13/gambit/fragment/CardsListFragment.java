@@ -16,6 +16,7 @@
 
 package ru.ming13.gambit.fragment;
 
+import android.app.Activity;
 import android.app.Fragment;
 import android.app.LoaderManager;
 import android.content.CursorLoader;
@@ -24,20 +25,27 @@ import android.content.Loader;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.support.v4.view.MenuItemCompat;
+import android.support.v7.widget.SearchView;
+import android.text.TextUtils;
 import android.util.SparseBooleanArray;
 import android.view.ActionMode;
 import android.view.LayoutInflater;
 import android.view.Menu;
+import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.ListView;
+import android.widget.ProgressBar;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.f2prateek.dart.Dart;
 import com.f2prateek.dart.InjectExtra;
+import com.squareup.otto.Subscribe;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,6 +55,9 @@ import butterknife.InjectView;
 import butterknife.OnClick;
 import ru.ming13.gambit.R;
 import ru.ming13.gambit.adapter.CardsListAdapter;
+import ru.ming13.gambit.bus.BusProvider;
+import ru.ming13.gambit.bus.CardsImportProgressEvent;
+import ru.ming13.gambit.bus.CardsImportedEvent;
 import ru.ming13.gambit.cursor.CardsCursor;
 import ru.ming13.gambit.model.Card;
 import ru.ming13.gambit.model.Deck;
@@ -59,7 +70,8 @@ import ru.ming13.gambit.util.Transitions;
 
 public class CardsListFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor>,
 	ListView.MultiChoiceModeListener,
-	AdapterView.OnItemClickListener
+	AdapterView.OnItemClickListener,
+	SearchView.OnQueryTextListener
 {
 	@InjectView(android.R.id.list)
 	AbsListView cardsList;
@@ -73,9 +85,14 @@ public class CardsListFragment extends Fragment implements LoaderManager.LoaderC
 	@InjectView(R.id.text_message_summary)
 	TextView messageSummary;
 
+	@InjectView(R.id.progress)
+	ProgressBar progressBar;
+
 	@InjectExtra(Fragments.Arguments.DECK)
 	Deck deck;
 
+	private String cardsSearchText;
+
 	@Override
 	public View onCreateView(LayoutInflater layoutInflater, ViewGroup container, Bundle savedInstanceState) {
 		return layoutInflater.inflate(R.layout.fragment_cards_list, container, false);
@@ -88,6 +105,7 @@ public class CardsListFragment extends Fragment implements LoaderManager.LoaderC
 		setUpInjections();
 
 		setUpCards();
+		setUpCardsSearch();
 	}
 
 	private void setUpInjections() {
@@ -115,11 +133,19 @@ public class CardsListFragment extends Fragment implements LoaderManager.LoaderC
 	public Loader<Cursor> onCreateLoader(int loaderId, Bundle loaderArguments) {
 		String sort = GambitContract.Cards.FRONT_SIDE_TEXT;
 
-		return new CursorLoader(getActivity(), getCardsUri(), null, null, null, sort);
+		return new CursorLoader(getActivity(), getCardsUri(), GambitContract.Cards.Projections.LIST, null, null, sort);
 	}
 
 	private Uri getCardsUri() {
-		return GambitContract.Cards.getCardsUri(deck.getId());
+		if (isCardsSearchActive()) {
+			return GambitContract.Cards.getCardsSearchUri(deck.getId(), cardsSearchText);
+		} else {
+			return GambitContract.Cards.getCardsUri(deck.getId());
+		}
+	}
+
+	private boolean isCardsSearchActive() {
+		return !TextUtils.isEmpty(cardsSearchText);
 	}
 
 	@Override
@@ -142,7 +168,7 @@ public class CardsListFragment extends Fragment implements LoaderManager.LoaderC
 	}
 
 	private void setUpCardsMessage() {
-		if (getCardsAdapter().isEmpty()) {
+		if (getCardsAdapter().isEmpty() && !isCardsSearchActive()) {
 			showCardsMessage();
 		} else {
 			hideCardsMessage();
@@ -244,12 +270,171 @@ public class CardsListFragment extends Fragment implements LoaderManager.LoaderC
 		startActivity(intent);
 	}
 
+	private void setUpCardsSearch() {
+		setHasOptionsMenu(true);
+	}
+
+	@Override
+	public void onCreateOptionsMenu(Menu menu, MenuInflater menuInflater) {
+		super.onCreateOptionsMenu(menu, menuInflater);
+
+		menuInflater.inflate(R.menu.action_bar_cards_list, menu);
+
+		SearchView cardsSearchView = (SearchView) MenuItemCompat.getActionView(menu.findItem(R.id.menu_search));
+		cardsSearchView.setOnQueryTextListener(this);
+	}
+
+	@Override
+	public boolean onQueryTextChange(String searchText) {
+		searchCards(searchText.trim());
+
+		return true;
+	}
+
+	@Override
+	public boolean onQueryTextSubmit(String searchText) {
+		searchCards(searchText.trim());
+
+		return true;
+	}
+
+	private void searchCards(String searchText) {
+		if (TextUtils.equals(cardsSearchText, searchText)) {
+			return;
+		}
+
+		cardsSearchText = searchText;
+
+		getLoaderManager().restartLoader(Loaders.CARDS, null, this);
+	}
+
+	@Override
+	public void onPrepareOptionsMenu(Menu menu) {
+		super.onPrepareOptionsMenu(menu);
+
+		menu.findItem(R.id.menu_import).setVisible(!isCardsImportActive());
+		menu.findItem(R.id.menu_cancel).setVisible(isCardsImportActive());
+	}
+
+	private boolean isCardsImportActive() {
+		return getCardsImportFragment() != null;
+	}
+
+	private CardsImportFragment getCardsImportFragment() {
+		return (CardsImportFragment) getFragmentManager().findFragmentByTag(CardsImportFragment.TAG);
+	}
+
+	@Override
+	public boolean onOptionsItemSelected(MenuItem menuItem) {
+		switch (menuItem.getItemId()) {
+			case R.id.menu_import:
+				startCardsFileOpening();
+				return true;
+
+			case R.id.menu_cancel:
+				cancelCardsImport();
+				return true;
+
+			default:
+				return super.onOptionsItemSelected(menuItem);
+		}
+	}
+
+	private void startCardsFileOpening() {
+		Intent intent = Intents.Builder.with(getActivity()).buildCardsFileOpeningIntent();
+		startActivityForResult(intent, Intents.Requests.CARDS_FILE_OPEN);
+	}
+
+	@Override
+	public void onActivityResult(int requestCode, int resultCode, Intent data) {
+		super.onActivityResult(requestCode, resultCode, data);
+
+		if ((requestCode == Intents.Requests.CARDS_FILE_OPEN) && (resultCode == Activity.RESULT_OK)) {
+			startCardsImport(data.getData());
+		}
+	}
+
+	private void startCardsImport(Uri cardsFileUri) {
+		getFragmentManager().beginTransaction()
+			.add(Fragments.Builder.buildCardsImportFragment(deck, cardsFileUri), CardsImportFragment.TAG)
+			.commit();
+
+		getFragmentManager().executePendingTransactions();
+
+		showCardsImportProgress();
+
+		getActivity().invalidateOptionsMenu();
+	}
+
+	private void showCardsImportProgress() {
+		progressBar.setIndeterminate(true);
+		progressBar.setVisibility(View.VISIBLE);
+	}
+
+	private void cancelCardsImport() {
+		getCardsImportFragment().cancelCardsImport();
+	}
+
+	@Subscribe
+	public void onCardsImportProgress(CardsImportProgressEvent event) {
+		// Bytes are not known for some files, the bar stays indeterminate then
+
+		if (event.getBytesCount() <= 0) {
+			return;
+		}
+
+		progressBar.setVisibility(View.VISIBLE);
+		progressBar.setIndeterminate(false);
+		progressBar.setProgress((int) (progressBar.getMax() * event.getProcessedBytesCount() / event.getBytesCount()));
+	}
+
+	@Subscribe
+	public void onCardsImported(CardsImportedEvent event) {
+		getFragmentManager().beginTransaction()
+			.remove(getCardsImportFragment())
+			.commit();
+
+		getFragmentManager().executePendingTransactions();
+
+		progressBar.setVisibility(View.GONE);
+
+		getActivity().invalidateOptionsMenu();
+
+		showCardsImportReport(event.getImportedCardsCount());
+	}
+
+	private void showCardsImportReport(long importedCardsCount) {
+		String message = getString(R.string.message_cards_imported, importedCardsCount);
+
+		Toast.makeText(getActivity(), message, Toast.LENGTH_LONG).show();
+	}
+
 	@OnClick(R.id.button_action)
 	public void startCardCreation() {
 		Intent intent = Intents.Builder.with(getActivity()).buildCardCreationIntent(deck);
 		startActivity(intent);
 	}
 
+	@Override
+	public void onResume() {
+		super.onResume();
+
+		if (isCardsImportActive()) {
+			showCardsImportProgress();
+		}
+
+		// A running import hands over its latest progress and a missed result on registration
+
+		BusProvider.getBus().register(this);
+	}
+
+	@Override
+	public void onPause() {
+		super.onPause();
+
+		BusProvider.getBus().unregister(this);
+	}
+
 	@Override
 	public void onDestroyView() {
 		super.onDestroyView();
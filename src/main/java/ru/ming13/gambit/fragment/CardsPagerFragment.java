@@ -32,13 +32,16 @@ import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.SeekBar;
+import android.widget.TextView;
 
 import com.f2prateek.dart.Dart;
 import com.f2prateek.dart.InjectExtra;
 import com.squareup.otto.Subscribe;
-import com.venmo.cursor.CursorList;
 import com.viewpagerindicator.UnderlinePageIndicator;
 
+import java.util.List;
+
 import butterknife.ButterKnife;
 import butterknife.InjectView;
 import butterknife.OnClick;
@@ -47,7 +50,9 @@ import ru.ming13.gambit.adapter.CardsPagerAdapter;
 import ru.ming13.gambit.bus.BusProvider;
 import ru.ming13.gambit.bus.DeckCardsOrderLoadedEvent;
 import ru.ming13.gambit.bus.DeviceShakenEvent;
-import ru.ming13.gambit.cursor.CardsCursor;
+import ru.ming13.gambit.cursor.CardBackSides;
+import ru.ming13.gambit.cursor.PagedCardsList;
+import ru.ming13.gambit.model.Card;
 import ru.ming13.gambit.model.Deck;
 import ru.ming13.gambit.provider.GambitContract;
 import ru.ming13.gambit.task.DeckCardsOrderLoadingTask;
@@ -60,10 +65,16 @@ import ru.ming13.gambit.util.Fragments;
 import ru.ming13.gambit.util.Intents;
 import ru.ming13.gambit.util.Loaders;
 import ru.ming13.gambit.util.Seismometer;
+import ru.ming13.gambit.util.ShuffledList;
+import ru.ming13.gambit.util.SqlBuilder;
 import ru.ming13.gambit.util.ViewDirector;
 
-public class CardsPagerFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor>
+public class CardsPagerFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor>,
+	ViewPager.OnPageChangeListener,
+	SeekBar.OnSeekBarChangeListener
 {
+	private static final int SEEKER_CARDS_COUNT = 50;
+
 	private static enum CardsOrder
 	{
 		DEFAULT, SHUFFLE, ORIGINAL
@@ -75,6 +86,15 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 	@InjectView(R.id.indicator_cards)
 	UnderlinePageIndicator cardsPagerIndicator;
 
+	@InjectView(R.id.layout_cards_seeker)
+	View cardsSeekerLayout;
+
+	@InjectView(R.id.seeker_cards)
+	SeekBar cardsSeeker;
+
+	@InjectView(R.id.text_cards_position)
+	TextView cardsPositionText;
+
 	@InjectExtra(Fragments.Arguments.DECK)
 	Deck deck;
 
@@ -126,6 +146,9 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 
 	private void setUpCardsIndicator() {
 		cardsPagerIndicator.setViewPager(cardsPager);
+		cardsPagerIndicator.setOnPageChangeListener(this);
+
+		cardsSeeker.setOnSeekBarChangeListener(this);
 	}
 
 	private void setUpCardsContent() {
@@ -134,9 +157,9 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 
 	@Override
 	public Loader<Cursor> onCreateLoader(int loaderId, Bundle loaderArguments) {
-		String sort = String.format("%s, %s", GambitContract.Cards.ORDER_INDEX, GambitContract.Cards.FRONT_SIDE_TEXT);
+		String[] projection = {SqlBuilder.buildCountProjection(GambitContract.Cards._COUNT)};
 
-		return new CursorLoader(getActivity(), getCardsUri(), null, null, null, sort);
+		return new CursorLoader(getActivity(), getCardsUri(), projection, null, null, null);
 	}
 
 	private Uri getCardsUri() {
@@ -145,7 +168,9 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 
 	@Override
 	public void onLoadFinished(Loader<Cursor> cardsLoader, Cursor cardsCursor) {
-		getCardsAdapter().refill(new CursorList<>(new CardsCursor(cardsCursor)));
+		getCardsAdapter().refill(
+			buildCards(cardsCursor),
+			CardBackSides.of(getActivity().getContentResolver(), deck, getCardsAdapter()));
 
 		setUpCurrentActionBar();
 
@@ -156,9 +181,24 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 
 			setUpCurrentCard();
 			setUpCurrentCardsOrder();
+
+			setUpCurrentCardsIndicator();
 		}
 	}
 
+	private List<Card> buildCards(Cursor cardsCountCursor) {
+		// Only the count is loaded up front, cards themselves are paged in around the current one,
+		// shuffled decks are paged in the shuffled order
+
+		int cardsCount = 0;
+
+		if (cardsCountCursor.moveToFirst()) {
+			cardsCount = cardsCountCursor.getInt(cardsCountCursor.getColumnIndex(GambitContract.Cards._COUNT));
+		}
+
+		return PagedCardsList.of(getActivity().getContentResolver(), deck, cardsCount, getCardsAdapter());
+	}
+
 	private CardsPagerAdapter getCardsAdapter() {
 		return (CardsPagerAdapter) cardsPager.getAdapter();
 	}
@@ -210,6 +250,66 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 		return currentCardsOrder == CardsOrder.DEFAULT;
 	}
 
+	private void setUpCurrentCardsIndicator() {
+		// A seeker with a counter is readable for any deck size, the underline only for small ones
+
+		if (shouldCardsSeekerBeShown()) {
+			cardsPagerIndicator.setVisibility(View.GONE);
+			cardsSeekerLayout.setVisibility(View.VISIBLE);
+
+			cardsSeeker.setMax(getCardsAdapter().getCount() - 1);
+			cardsSeeker.setProgress(cardsPager.getCurrentItem());
+
+			setUpCardsPosition(cardsPager.getCurrentItem());
+		} else {
+			cardsSeekerLayout.setVisibility(View.GONE);
+			cardsPagerIndicator.setVisibility(View.VISIBLE);
+		}
+	}
+
+	private boolean shouldCardsSeekerBeShown() {
+		return getCardsAdapter().getCount() > SEEKER_CARDS_COUNT;
+	}
+
+	private void setUpCardsPosition(int cardPosition) {
+		cardsPositionText.setText(getString(R.string.mask_cards_position, cardPosition + 1, getCardsAdapter().getCount()));
+	}
+
+	@Override
+	public void onPageSelected(int cardPosition) {
+		if (shouldCardsSeekerBeShown()) {
+			cardsSeeker.setProgress(cardPosition);
+
+			setUpCardsPosition(cardPosition);
+		}
+	}
+
+	@Override
+	public void onPageScrolled(int cardPosition, float cardPositionOffset, int cardPositionOffsetPixels) {
+	}
+
+	@Override
+	public void onPageScrollStateChanged(int cardsPagerState) {
+	}
+
+	@Override
+	public void onProgressChanged(SeekBar seekBar, int cardPosition, boolean fromUser) {
+		if (fromUser) {
+			setUpCardsPosition(cardPosition);
+		}
+	}
+
+	@Override
+	public void onStartTrackingTouch(SeekBar seekBar) {
+	}
+
+	@Override
+	public void onStopTrackingTouch(SeekBar seekBar) {
+		// Jumping straight to the card loads a single page around it instead of every page in between
+
+		cardsPager.setCurrentItem(seekBar.getProgress(), false);
+	}
+
 	@Subscribe
 	public void onCardsOrderLoaded(DeckCardsOrderLoadedEvent event) {
 		switch (event.getCardsOrder()) {
@@ -226,6 +326,18 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 		}
 
 		setUpCurrentActionBar();
+
+		if (event.getCardsShuffleSeed() != deck.getShuffleSeed()) {
+			changeDeckShuffleSeed(event.getCardsShuffleSeed());
+
+			getLoaderManager().restartLoader(Loaders.CARDS, null, this);
+		}
+	}
+
+	private void changeDeckShuffleSeed(long deckShuffleSeed) {
+		this.deck = new Deck(deck.getId(), deck.getTitle(), deck.getCurrentCardPosition(), deckShuffleSeed);
+
+		getArguments().putParcelable(Fragments.Arguments.DECK, deck);
 	}
 
 	@Override
@@ -305,6 +417,8 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 	}
 
 	private void shuffleCards() {
+		changeDeckShuffleSeed(ShuffledList.buildSeed());
+
 		DeckCardsOrderShufflingTask.execute(getActivity().getContentResolver(), deck);
 
 		switchCardsOrder(CardsOrder.SHUFFLE);
@@ -323,6 +437,8 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 	}
 
 	private void orderCards() {
+		changeDeckShuffleSeed(GambitContract.Decks.Defaults.SHUFFLE_SEED);
+
 		DeckCardsOrderResettingTask.execute(getActivity().getContentResolver(), deck);
 
 		switchCardsOrder(CardsOrder.ORIGINAL);
@@ -334,10 +450,7 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 	}
 
 	private void flipCards() {
-		CardsPagerAdapter cardsAdapter = getCardsAdapter();
-
-		cardsAdapter.switchDefaultCardSide();
-		cardsAdapter.notifyDataSetChanged();
+		getCardsAdapter().flipCards();
 	}
 
 	@Override
@@ -366,7 +479,7 @@ public class CardsPagerFragment extends Fragment implements LoaderManager.Loader
 	}
 
 	private void saveCurrentCard() {
-		Deck deck = new Deck(this.deck.getId(), this.deck.getTitle(), cardsPager.getCurrentItem());
+		Deck deck = new Deck(this.deck.getId(), this.deck.getTitle(), cardsPager.getCurrentItem(), this.deck.getShuffleSeed());
 
 		getArguments().putParcelable(Fragments.Arguments.DECK, deck);
 
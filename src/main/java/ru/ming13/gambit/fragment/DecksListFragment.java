@@ -16,6 +16,7 @@
 
 package ru.ming13.gambit.fragment;
 
+import android.app.Activity;
 import android.app.ListFragment;
 import android.app.LoaderManager;
 import android.content.CursorLoader;
@@ -34,7 +35,11 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ListView;
+import android.widget.ProgressBar;
 import android.widget.TextView;
+import android.widget.Toast;
+
+import com.squareup.otto.Subscribe;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,10 +52,14 @@ import ru.ming13.gambit.adapter.DecksListAdapter;
 import ru.ming13.gambit.bus.BusProvider;
 import ru.ming13.gambit.bus.DeckDeletedEvent;
 import ru.ming13.gambit.bus.DeckSelectedEvent;
+import ru.ming13.gambit.bus.DecksImportProgressEvent;
+import ru.ming13.gambit.bus.DecksImportedEvent;
+import ru.ming13.gambit.bus.DecksNotImportedEvent;
 import ru.ming13.gambit.cursor.DecksCursor;
 import ru.ming13.gambit.model.Deck;
 import ru.ming13.gambit.provider.GambitContract;
 import ru.ming13.gambit.task.DecksDeletionTask;
+import ru.ming13.gambit.task.DecksImportingTask;
 import ru.ming13.gambit.util.Android;
 import ru.ming13.gambit.util.Intents;
 import ru.ming13.gambit.util.ListSwitcher;
@@ -70,6 +79,11 @@ public class DecksListFragment extends ListFragment implements LoaderManager.Loa
 	@InjectView(R.id.text_message_summary)
 	TextView messageSummary;
 
+	@InjectView(R.id.progress)
+	ProgressBar progressBar;
+
+	private DecksImportingTask decksImportingTask;
+
 	@Override
 	public View onCreateView(@NonNull LayoutInflater layoutInflater, ViewGroup container, Bundle savedInstanceState) {
 		return layoutInflater.inflate(R.layout.fragment_decks_list, container, false);
@@ -82,6 +96,7 @@ public class DecksListFragment extends ListFragment implements LoaderManager.Loa
 		setUpInjections();
 
 		setUpDecks();
+		setUpDecksImport();
 	}
 
 	private void setUpInjections() {
@@ -194,9 +209,11 @@ public class DecksListFragment extends ListFragment implements LoaderManager.Loa
 	private void changeDecksActions(ActionMode actionMode) {
 		MenuItem actionEditDeck = actionMode.getMenu().findItem(R.id.menu_edit);
 		MenuItem actionEditCards = actionMode.getMenu().findItem(R.id.menu_edit_cards);
+		MenuItem actionShareDeck = actionMode.getMenu().findItem(R.id.menu_share);
 
 		actionEditDeck.setVisible(isSingleDeckSelected());
 		actionEditCards.setVisible(isSingleDeckSelected());
+		actionShareDeck.setVisible(isSingleDeckSelected());
 	}
 
 	private boolean isSingleDeckSelected() {
@@ -228,6 +245,10 @@ public class DecksListFragment extends ListFragment implements LoaderManager.Loa
 				startCardsListActivity(getCheckedDeck());
 				break;
 
+			case R.id.menu_share:
+				startDeckSharing(getCheckedDeck());
+				break;
+
 			case R.id.menu_delete:
 				startDecksDeletion(getCheckedDecks());
 				break;
@@ -246,6 +267,11 @@ public class DecksListFragment extends ListFragment implements LoaderManager.Loa
 		startActivity(intent);
 	}
 
+	private void startDeckSharing(Deck deck) {
+		Intent intent = Intents.Builder.with(getActivity()).buildDeckSharingIntent(deck);
+		startActivity(intent);
+	}
+
 	private Deck getCheckedDeck() {
 		return getCheckedDecks().get(0);
 	}
@@ -300,6 +326,130 @@ public class DecksListFragment extends ListFragment implements LoaderManager.Loa
 		startActivity(intent);
 	}
 
+	private void setUpDecksImport() {
+		setHasOptionsMenu(true);
+	}
+
+	@Override
+	public void onPrepareOptionsMenu(Menu menu) {
+		super.onPrepareOptionsMenu(menu);
+
+		menu.findItem(R.id.menu_import).setVisible(!isDecksImportActive());
+		menu.findItem(R.id.menu_cancel).setVisible(isDecksImportActive());
+	}
+
+	private boolean isDecksImportActive() {
+		return decksImportingTask != null;
+	}
+
+	@Override
+	public boolean onOptionsItemSelected(MenuItem menuItem) {
+		switch (menuItem.getItemId()) {
+			case R.id.menu_import:
+				startDecksFileOpening();
+				return true;
+
+			case R.id.menu_cancel:
+				cancelDecksImport();
+				return true;
+
+			default:
+				return super.onOptionsItemSelected(menuItem);
+		}
+	}
+
+	private void startDecksFileOpening() {
+		Intent intent = Intents.Builder.with(getActivity()).buildDecksFileOpeningIntent();
+		startActivityForResult(intent, Intents.Requests.DECKS_FILE_OPEN);
+	}
+
+	@Override
+	public void onActivityResult(int requestCode, int resultCode, Intent data) {
+		super.onActivityResult(requestCode, resultCode, data);
+
+		if ((requestCode == Intents.Requests.DECKS_FILE_OPEN) && (resultCode == Activity.RESULT_OK)) {
+			startDecksImport(data.getData());
+		}
+	}
+
+	private void startDecksImport(Uri packageFileUri) {
+		decksImportingTask = DecksImportingTask.execute(getActivity(), packageFileUri);
+
+		progressBar.setIndeterminate(true);
+		progressBar.setVisibility(View.VISIBLE);
+
+		getActivity().invalidateOptionsMenu();
+	}
+
+	private void cancelDecksImport() {
+		decksImportingTask.cancel(false);
+	}
+
+	@Subscribe
+	public void onDecksImportProgress(DecksImportProgressEvent event) {
+		// The package is extracted first and its notes are read after that, both steps go from start to end
+
+		if (event.getCount() <= 0) {
+			return;
+		}
+
+		progressBar.setVisibility(View.VISIBLE);
+		progressBar.setIndeterminate(false);
+		progressBar.setProgress((int) (progressBar.getMax() * event.getProcessedCount() / event.getCount()));
+	}
+
+	@Subscribe
+	public void onDecksImported(DecksImportedEvent event) {
+		decksImportingTask = null;
+
+		progressBar.setVisibility(View.GONE);
+
+		getActivity().invalidateOptionsMenu();
+
+		showDecksImportReport(event.getImportedCardsCount());
+	}
+
+	private void showDecksImportReport(long importedCardsCount) {
+		String message = getString(R.string.message_cards_imported, importedCardsCount);
+
+		Toast.makeText(getActivity(), message, Toast.LENGTH_LONG).show();
+	}
+
+	@Subscribe
+	public void onDecksNotImported(DecksNotImportedEvent event) {
+		decksImportingTask = null;
+
+		progressBar.setVisibility(View.GONE);
+
+		getActivity().invalidateOptionsMenu();
+
+		Toast.makeText(getActivity(), getDecksNotImportedMessage(event.getReason()), Toast.LENGTH_LONG).show();
+	}
+
+	private int getDecksNotImportedMessage(DecksNotImportedEvent.Reason reason) {
+		switch (reason) {
+			case UNSUPPORTED_PACKAGE:
+				return R.string.error_anki_package_unsupported;
+
+			default:
+				return R.string.error_anki_package_invalid;
+		}
+	}
+
+	@Override
+	public void onResume() {
+		super.onResume();
+
+		BusProvider.getBus().register(this);
+	}
+
+	@Override
+	public void onPause() {
+		super.onPause();
+
+		BusProvider.getBus().unregister(this);
+	}
+
 	@Override
 	public void onDestroyView() {
 		super.onDestroyView();
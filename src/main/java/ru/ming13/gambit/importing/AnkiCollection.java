@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.importing;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+final class AnkiCollection
+{
+	private static final class Queries
+	{
+		private Queries() {
+		}
+
+		public static final String DECKS_TABLE_PRESENCE = "select count(*) from sqlite_master where type = 'table' and name = 'decks'";
+		public static final String DECKS = "select id, name from decks";
+		public static final String LEGACY_DECKS = "select decks from col";
+
+		public static final String NOTES_COUNT = "select count(*) from notes";
+		public static final String NOTES = "select notes.flds, min(cards.did) as did from notes join cards on cards.nid = notes.id group by notes.id order by did, notes.id";
+	}
+
+	private static final class Separators
+	{
+		private Separators() {
+		}
+
+		public static final String DECK_NAME = "\u001f";
+		public static final String DECK_TITLE = "::";
+	}
+
+	private static final class LegacyDeckFields
+	{
+		private LegacyDeckFields() {
+		}
+
+		public static final String NAME = "name";
+	}
+
+	private final SQLiteDatabase database;
+
+	public static AnkiCollection at(@NonNull SQLiteDatabase database) {
+		return new AnkiCollection(database);
+	}
+
+	private AnkiCollection(SQLiteDatabase database) {
+		this.database = database;
+	}
+
+	public Map<Long, String> getDecksTitles() {
+		// Decks moved from a JSON column to a separate table in newer collections
+
+		if (DatabaseUtils.longForQuery(database, Queries.DECKS_TABLE_PRESENCE, null) > 0) {
+			return getDecksTableTitles();
+		} else {
+			return getLegacyDecksTitles();
+		}
+	}
+
+	private Map<Long, String> getDecksTableTitles() {
+		Map<Long, String> decksTitles = new HashMap<>();
+
+		Cursor decksCursor = database.rawQuery(Queries.DECKS, null);
+
+		try {
+			while (decksCursor.moveToNext()) {
+				decksTitles.put(decksCursor.getLong(0), decksCursor.getString(1).replace(Separators.DECK_NAME, Separators.DECK_TITLE));
+			}
+		} finally {
+			decksCursor.close();
+		}
+
+		return decksTitles;
+	}
+
+	private Map<Long, String> getLegacyDecksTitles() {
+		Map<Long, String> decksTitles = new HashMap<>();
+
+		try {
+			JSONObject decks = new JSONObject(DatabaseUtils.stringForQuery(database, Queries.LEGACY_DECKS, null));
+
+			Iterator<String> decksIds = decks.keys();
+
+			while (decksIds.hasNext()) {
+				String deckId = decksIds.next();
+
+				decksTitles.put(Long.valueOf(deckId), decks.getJSONObject(deckId).getString(LegacyDeckFields.NAME));
+			}
+		} catch (JSONException e) {
+			throw new RuntimeException(e);
+		}
+
+		return decksTitles;
+	}
+
+	public long getNotesCount() {
+		return DatabaseUtils.longForQuery(database, Queries.NOTES_COUNT, null);
+	}
+
+	public Cursor queryNotes() {
+		// Notes go deck by deck, a note with several cards belongs to the deck of its first one
+
+		return database.rawQuery(Queries.NOTES, null);
+	}
+}
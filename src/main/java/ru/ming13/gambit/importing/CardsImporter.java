@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.importing;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.support.annotation.NonNull;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.ming13.gambit.model.Card;
+import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.provider.GambitContract;
+
+public final class CardsImporter
+{
+	private static final int CARDS_BATCH_SIZE = 500;
+
+	private final ContentResolver contentResolver;
+	private final Deck deck;
+
+	public static CardsImporter of(@NonNull ContentResolver contentResolver, @NonNull Deck deck) {
+		return new CardsImporter(contentResolver, deck);
+	}
+
+	private CardsImporter(ContentResolver contentResolver, Deck deck) {
+		this.contentResolver = contentResolver;
+		this.deck = deck;
+	}
+
+	public long importCards(@NonNull InputStream cardsStream, long cardsStreamLength, @NonNull CardsImportListener importListener) throws IOException {
+		// Cards are read one by one and inserted in batches, each batch is a single transaction
+
+		CountingInputStream cardsCountingStream = new CountingInputStream(cardsStream);
+		CardsTextReader cardsReader = CardsTextReader.of(cardsCountingStream);
+
+		List<ContentValues> cardsValues = new ArrayList<>(CARDS_BATCH_SIZE);
+
+		long importedCardsCount = 0;
+
+		try {
+			Card card;
+
+			while (!importListener.isImportCancelled() && ((card = cardsReader.readCard()) != null)) {
+				cardsValues.add(buildCardValues(card));
+
+				if (cardsValues.size() == CARDS_BATCH_SIZE) {
+					importedCardsCount += insertCards(cardsValues);
+
+					importListener.onProgress(importedCardsCount, cardsCountingStream.getByteCount(), cardsStreamLength);
+				}
+			}
+
+			if (!importListener.isImportCancelled() && !cardsValues.isEmpty()) {
+				importedCardsCount += insertCards(cardsValues);
+			}
+
+			return importedCardsCount;
+		} finally {
+			cardsReader.close();
+
+			contentResolver.notifyChange(GambitContract.Cards.getCardsUri(deck.getId()), null);
+		}
+	}
+
+	private ContentValues buildCardValues(Card card) {
+		ContentValues cardValues = new ContentValues();
+
+		cardValues.put(GambitContract.Cards.FRONT_SIDE_TEXT, card.getFrontSideText());
+		cardValues.put(GambitContract.Cards.BACK_SIDE_TEXT, card.getBackSideText());
+		cardValues.put(GambitContract.Cards.ORDER_INDEX, GambitContract.Cards.Defaults.ORDER_INDEX);
+
+		return cardValues;
+	}
+
+	private int insertCards(List<ContentValues> cardsValues) {
+		// Observers are notified once the whole import is done, not after every batch
+
+		int insertedCardsCount = contentResolver.bulkInsert(
+			GambitContract.Cards.getCardsImportUri(deck.getId()),
+			cardsValues.toArray(new ContentValues[cardsValues.size()]));
+
+		cardsValues.clear();
+
+		return insertedCardsCount;
+	}
+}
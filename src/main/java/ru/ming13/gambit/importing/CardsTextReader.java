@@ -0,0 +1,281 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.importing;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import ru.ming13.gambit.model.Card;
+
+final class CardsTextReader implements Closeable
+{
+	private static final class Delimiters
+	{
+		private Delimiters() {
+		}
+
+		public static final char TAB = '\t';
+		public static final char COMMA = ',';
+		public static final char SEMICOLON = ';';
+		public static final char UNKNOWN = 0;
+	}
+
+	private static final class Headers
+	{
+		private Headers() {
+		}
+
+		public static final String PREFIX = "#";
+		public static final String SEPARATOR = "#separator:";
+
+		public static final String SEPARATOR_TAB = "tab";
+		public static final String SEPARATOR_COMMA = "comma";
+		public static final String SEPARATOR_SEMICOLON = "semicolon";
+	}
+
+	private static final class Limits
+	{
+		private Limits() {
+		}
+
+		public static final int RECORD_LINES_COUNT = 100;
+	}
+
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	private static final char QUOTE = '"';
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	private final BufferedReader reader;
+
+	private final List<String> fields = new ArrayList<>();
+	private final StringBuilder field = new StringBuilder();
+	private final Deque<String> recordLines = new ArrayDeque<>();
+	private final Deque<String> skippedLines = new ArrayDeque<>();
+
+	private char delimiter = Delimiters.UNKNOWN;
+	private boolean firstLine = true;
+	private boolean headersRead = false;
+
+	public static CardsTextReader of(@NonNull InputStream stream) {
+		return new CardsTextReader(stream);
+	}
+
+	private CardsTextReader(InputStream stream) {
+		this.reader = new BufferedReader(new InputStreamReader(stream, CHARSET));
+	}
+
+	public Card readCard() throws IOException {
+		// Records without both sides are skipped, extra fields like Anki tags are ignored
+
+		while (readRecord()) {
+			if (fields.size() < 2) {
+				continue;
+			}
+
+			String frontSideText = fields.get(0).trim();
+			String backSideText = fields.get(1).trim();
+
+			if (!frontSideText.isEmpty() && !backSideText.isEmpty()) {
+				return new Card(frontSideText, backSideText);
+			}
+		}
+
+		return null;
+	}
+
+	private boolean readRecord() throws IOException {
+		fields.clear();
+
+		String line = readLine();
+
+		// Headers go before the first record only, later lines with the prefix are plain text
+
+		while (!headersRead && (line != null) && line.startsWith(Headers.PREFIX)) {
+			readHeader(line);
+
+			line = readLine();
+		}
+
+		if (line == null) {
+			return false;
+		}
+
+		headersRead = true;
+
+		if (delimiter == Delimiters.UNKNOWN) {
+			delimiter = detectDelimiter(line);
+		}
+
+		parseRecord(line);
+
+		return true;
+	}
+
+	private String readLine() throws IOException {
+		if (!skippedLines.isEmpty()) {
+			return skippedLines.poll();
+		}
+
+		String line = reader.readLine();
+
+		if (firstLine && (line != null) && !line.isEmpty() && (line.charAt(0) == BYTE_ORDER_MARK)) {
+			line = line.substring(1);
+		}
+
+		firstLine = false;
+
+		return line;
+	}
+
+	private void readHeader(String line) {
+		// Anki text exports start with headers like #separator:tab
+
+		if (!line.startsWith(Headers.SEPARATOR)) {
+			return;
+		}
+
+		switch (line.substring(Headers.SEPARATOR.length()).trim().toLowerCase()) {
+			case Headers.SEPARATOR_TAB:
+				delimiter = Delimiters.TAB;
+				break;
+
+			case Headers.SEPARATOR_COMMA:
+				delimiter = Delimiters.COMMA;
+				break;
+
+			case Headers.SEPARATOR_SEMICOLON:
+				delimiter = Delimiters.SEMICOLON;
+				break;
+
+			default:
+				break;
+		}
+	}
+
+	private char detectDelimiter(String line) {
+		if (line.indexOf(Delimiters.TAB) >= 0) {
+			return Delimiters.TAB;
+		}
+
+		if (countCharacters(line, Delimiters.SEMICOLON) > countCharacters(line, Delimiters.COMMA)) {
+			return Delimiters.SEMICOLON;
+		}
+
+		return Delimiters.COMMA;
+	}
+
+	private int countCharacters(String line, char character) {
+		int charactersCount = 0;
+
+		for (int characterPosition = 0; characterPosition < line.length(); characterPosition++) {
+			if (line.charAt(characterPosition) == character) {
+				charactersCount++;
+			}
+		}
+
+		return charactersCount;
+	}
+
+	private void parseRecord(String line) throws IOException {
+		// Quoted fields can contain delimiters, doubled quotes and line breaks
+
+		field.setLength(0);
+		recordLines.clear();
+
+		boolean quoted = false;
+		boolean fieldStart = true;
+
+		while (line != null) {
+			recordLines.add(line);
+
+			for (int characterPosition = 0; characterPosition < line.length(); characterPosition++) {
+				char character = line.charAt(characterPosition);
+
+				if (quoted) {
+					if (character != QUOTE) {
+						field.append(character);
+					} else if ((characterPosition + 1 < line.length()) && (line.charAt(characterPosition + 1) == QUOTE)) {
+						field.append(QUOTE);
+						characterPosition++;
+					} else {
+						quoted = false;
+					}
+				} else if (character == delimiter) {
+					fields.add(field.toString());
+					field.setLength(0);
+
+					fieldStart = true;
+
+					continue;
+				} else if ((character == QUOTE) && fieldStart) {
+					quoted = true;
+				} else {
+					field.append(character);
+				}
+
+				fieldStart = false;
+			}
+
+			if (!quoted) {
+				break;
+			}
+
+			if (recordLines.size() == Limits.RECORD_LINES_COUNT) {
+				break;
+			}
+
+			field.append('\n');
+
+			line = readLine();
+		}
+
+		if (quoted) {
+			skipRecord();
+		} else {
+			fields.add(field.toString());
+		}
+	}
+
+	private void skipRecord() {
+		// A quote without a pair would take the rest of the file, so only its first line is dropped
+		// and the following ones are read again as separate records
+
+		fields.clear();
+
+		recordLines.poll();
+
+		while (!recordLines.isEmpty()) {
+			skippedLines.push(recordLines.pollLast());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.importing;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.support.annotation.NonNull;
+import android.text.Html;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import ru.ming13.gambit.provider.GambitContract;
+
+public final class DecksImporter
+{
+	private static final class CollectionEntries
+	{
+		private CollectionEntries() {
+		}
+
+		public static final List<String> NAMES = Arrays.asList("collection.anki2", "collection.anki21");
+		public static final String COMPRESSED_NAME = "collection.anki21b";
+	}
+
+	private static final class NoteFields
+	{
+		private NoteFields() {
+		}
+
+		public static final String SEPARATOR = "\u001f";
+		public static final String MEDIA_PATTERN = "\\[sound:[^\\]]*\\]|\\uFFFC";
+	}
+
+	private static final String COLLECTION_PREFIX = "collection";
+
+	private static final int CARDS_BATCH_SIZE = 500;
+
+	private final Context context;
+
+	public static DecksImporter of(@NonNull Context context) {
+		return new DecksImporter(context);
+	}
+
+	private DecksImporter(Context context) {
+		this.context = context.getApplicationContext();
+	}
+
+	public long importDecks(@NonNull InputStream packageStream, long packageStreamLength, @NonNull CardsImportListener importListener) throws IOException {
+		// Anki packages are zip archives with a SQLite collection, it is extracted once and read in place
+
+		File collectionFile = File.createTempFile(COLLECTION_PREFIX, null, context.getCacheDir());
+
+		try {
+			if (!extractCollection(packageStream, packageStreamLength, collectionFile, importListener)) {
+				return 0;
+			}
+
+			return importCollection(collectionFile, importListener);
+		} finally {
+			collectionFile.delete();
+		}
+	}
+
+	private boolean extractCollection(InputStream packageStream, long packageStreamLength, File collectionFile, CardsImportListener importListener) throws IOException {
+		// Newer packages keep a stub collection next to the actual one, the newest format wins.
+		// The stub tells to update Anki, so zstd-compressed collections are refused instead.
+
+		CountingInputStream packageCountingStream = new CountingInputStream(packageStream);
+		ZipInputStream packageZipStream = new ZipInputStream(packageCountingStream);
+
+		int collectionEntryPriority = -1;
+
+		ZipEntry packageEntry;
+
+		while ((packageEntry = packageZipStream.getNextEntry()) != null) {
+			if (importListener.isImportCancelled()) {
+				return false;
+			}
+
+			if (packageEntry.getName().equals(CollectionEntries.COMPRESSED_NAME)) {
+				throw new UnsupportedPackageException("Package collection is compressed, export it for older Anki versions");
+			}
+
+			int packageEntryPriority = CollectionEntries.NAMES.indexOf(packageEntry.getName());
+
+			if (packageEntryPriority > collectionEntryPriority) {
+				OutputStream collectionStream = new FileOutputStream(collectionFile);
+
+				try {
+					IOUtils.copyLarge(packageZipStream, collectionStream);
+				} finally {
+					collectionStream.close();
+				}
+
+				collectionEntryPriority = packageEntryPriority;
+			}
+
+			importListener.onProgress(0, packageCountingStream.getByteCount(), packageStreamLength);
+		}
+
+		if (collectionEntryPriority < 0) {
+			throw new InvalidPackageException("Package does not contain a collection");
+		}
+
+		return true;
+	}
+
+	private long importCollection(File collectionFile, CardsImportListener importListener) throws InvalidPackageException {
+		try {
+			SQLiteDatabase collectionDatabase = SQLiteDatabase.openDatabase(collectionFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+
+			try {
+				return importCollection(AnkiCollection.at(collectionDatabase), importListener);
+			} finally {
+				collectionDatabase.close();
+			}
+		} catch (SQLiteException e) {
+			// Not a database at all or a collection without the expected tables
+
+			throw new InvalidPackageException("Package collection cannot be read", e);
+		}
+	}
+
+	private long importCollection(AnkiCollection collection, CardsImportListener importListener) {
+		Map<Long, String> decksTitles = collection.getDecksTitles();
+
+		long notesCount = collection.getNotesCount();
+		long processedNotesCount = 0;
+
+		long importedCardsCount = 0;
+
+		long deckId = -1;
+		long collectionDeckId = -1;
+
+		List<ContentValues> cardsValues = new ArrayList<>(CARDS_BATCH_SIZE);
+		Set<Long> decksIds = new HashSet<>();
+
+		Cursor notesCursor = collection.queryNotes();
+
+		try {
+			while (!importListener.isImportCancelled() && notesCursor.moveToNext()) {
+				processedNotesCount++;
+
+				ContentValues cardValues = buildCardValues(notesCursor.getString(0));
+
+				if (cardValues == null) {
+					continue;
+				}
+
+				if ((deckId < 0) || (collectionDeckId != notesCursor.getLong(1))) {
+					importedCardsCount += insertCards(deckId, cardsValues);
+
+					collectionDeckId = notesCursor.getLong(1);
+					deckId = getDeckId(getDeckTitle(decksTitles, collectionDeckId));
+					decksIds.add(deckId);
+				}
+
+				cardsValues.add(cardValues);
+
+				if (cardsValues.size() == CARDS_BATCH_SIZE) {
+					importedCardsCount += insertCards(deckId, cardsValues);
+
+					importListener.onProgress(importedCardsCount, processedNotesCount, notesCount);
+				}
+			}
+
+			if (!importListener.isImportCancelled()) {
+				importedCardsCount += insertCards(deckId, cardsValues);
+			}
+
+			return importedCardsCount;
+		} finally {
+			notesCursor.close();
+
+			notifyCardsChange(decksIds);
+		}
+	}
+
+	private ContentValues buildCardValues(String noteFields) {
+		// Only the first two fields make a card, notes without them are skipped
+
+		String[] noteFieldsTexts = noteFields.split(NoteFields.SEPARATOR);
+
+		if (noteFieldsTexts.length < 2) {
+			return null;
+		}
+
+		String frontSideText = buildCardSideText(noteFieldsTexts[0]);
+		String backSideText = buildCardSideText(noteFieldsTexts[1]);
+
+		if (frontSideText.isEmpty() || backSideText.isEmpty()) {
+			return null;
+		}
+
+		ContentValues cardValues = new ContentValues();
+
+		cardValues.put(GambitContract.Cards.FRONT_SIDE_TEXT, frontSideText);
+		cardValues.put(GambitContract.Cards.BACK_SIDE_TEXT, backSideText);
+		cardValues.put(GambitContract.Cards.ORDER_INDEX, GambitContract.Cards.Defaults.ORDER_INDEX);
+
+		return cardValues;
+	}
+
+	private String buildCardSideText(String noteField) {
+		// Fields are HTML, pictures and sounds are not supported and dropped
+
+		return Html.fromHtml(noteField).toString().replaceAll(NoteFields.MEDIA_PATTERN, "").trim();
+	}
+
+	private String getDeckTitle(Map<Long, String> decksTitles, long collectionDeckId) {
+		String deckTitle = decksTitles.get(collectionDeckId);
+
+		if (deckTitle == null) {
+			return String.valueOf(collectionDeckId);
+		}
+
+		return deckTitle;
+	}
+
+	private long getDeckId(String deckTitle) {
+		// Cards go to an existing deck with the same title, titles are unique
+
+		Cursor deckCursor = getContentResolver().query(
+			GambitContract.Decks.getDecksUri(),
+			new String[] {GambitContract.Decks._ID},
+			String.format("%s = ?", GambitContract.Decks.TITLE),
+			new String[] {deckTitle},
+			null);
+
+		try {
+			if (deckCursor.moveToFirst()) {
+				return deckCursor.getLong(0);
+			}
+		} finally {
+			deckCursor.close();
+		}
+
+		return GambitContract.Decks.getDeckId(getContentResolver().insert(GambitContract.Decks.getDecksUri(), buildDeckValues(deckTitle)));
+	}
+
+	private ContentValues buildDeckValues(String deckTitle) {
+		ContentValues deckValues = new ContentValues();
+
+		deckValues.put(GambitContract.Decks.TITLE, deckTitle);
+		deckValues.put(GambitContract.Decks.CURRENT_CARD_INDEX, GambitContract.Decks.Defaults.CURRENT_CARD_INDEX);
+
+		return deckValues;
+	}
+
+	private int insertCards(long deckId, List<ContentValues> cardsValues) {
+		if (cardsValues.isEmpty()) {
+			return 0;
+		}
+
+		int insertedCardsCount = getContentResolver().bulkInsert(
+			GambitContract.Cards.getCardsImportUri(deckId),
+			cardsValues.toArray(new ContentValues[cardsValues.size()]));
+
+		cardsValues.clear();
+
+		return insertedCardsCount;
+	}
+
+	private void notifyCardsChange(Set<Long> decksIds) {
+		// Observers are notified once the whole import is done, not after every batch
+
+		for (long deckId : decksIds) {
+			getContentResolver().notifyChange(GambitContract.Cards.getCardsUri(deckId), null);
+		}
+	}
+
+	private ContentResolver getContentResolver() {
+		return context.getContentResolver();
+	}
+}
@@ -24,6 +24,7 @@ public class Deck implements Parcelable
 	private final long id;
 	private final String title;
 	private final int currentCardPosition;
+	private final long shuffleSeed;
 
 	public Deck(String title) {
 		this(Long.MIN_VALUE, title, Integer.MIN_VALUE);
@@ -34,9 +35,14 @@ public class Deck implements Parcelable
 	}
 
 	public Deck(long id, String title, int currentCardPosition) {
+		this(id, title, currentCardPosition, 0);
+	}
+
+	public Deck(long id, String title, int currentCardPosition, long shuffleSeed) {
 		this.id = id;
 		this.title = title;
 		this.currentCardPosition = currentCardPosition;
+		this.shuffleSeed = shuffleSeed;
 	}
 
 	public long getId() {
@@ -51,6 +57,10 @@ public class Deck implements Parcelable
 		return currentCardPosition;
 	}
 
+	public long getShuffleSeed() {
+		return shuffleSeed;
+	}
+
 	public static final Creator<Deck> CREATOR = new Creator<Deck>()
 	{
 		@Override
@@ -68,6 +78,7 @@ public class Deck implements Parcelable
 		this.id = parcel.readLong();
 		this.title = parcel.readString();
 		this.currentCardPosition = parcel.readInt();
+		this.shuffleSeed = parcel.readLong();
 	}
 
 	@Override
@@ -75,6 +86,7 @@ public class Deck implements Parcelable
 		parcel.writeLong(id);
 		parcel.writeString(title);
 		parcel.writeInt(currentCardPosition);
+		parcel.writeLong(shuffleSeed);
 	}
 
 	@Override
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.provider;
+
+import android.database.AbstractCursor;
+import android.database.Cursor;
+
+final class GambitCachedCursor extends AbstractCursor
+{
+	private final String[] columns;
+	private final Object[][] rows;
+
+	public GambitCachedCursor(String[] columns, Object[][] rows) {
+		this.columns = columns;
+		this.rows = rows;
+	}
+
+	private Object getValue(int column) {
+		return rows[getPosition()][column];
+	}
+
+	@Override
+	public int getCount() {
+		return rows.length;
+	}
+
+	@Override
+	public String[] getColumnNames() {
+		return columns;
+	}
+
+	@Override
+	public int getType(int column) {
+		Object value = getValue(column);
+
+		if (value == null) {
+			return Cursor.FIELD_TYPE_NULL;
+		}
+
+		if (value instanceof Long) {
+			return Cursor.FIELD_TYPE_INTEGER;
+		}
+
+		if (value instanceof Double) {
+			return Cursor.FIELD_TYPE_FLOAT;
+		}
+
+		if (value instanceof byte[]) {
+			return Cursor.FIELD_TYPE_BLOB;
+		}
+
+		return Cursor.FIELD_TYPE_STRING;
+	}
+
+	@Override
+	public String getString(int column) {
+		Object value = getValue(column);
+
+		if (value == null) {
+			return null;
+		}
+
+		return value.toString();
+	}
+
+	@Override
+	public short getShort(int column) {
+		return (short) getLong(column);
+	}
+
+	@Override
+	public int getInt(int column) {
+		return (int) getLong(column);
+	}
+
+	@Override
+	public long getLong(int column) {
+		Object value = getValue(column);
+
+		if (value == null) {
+			return 0;
+		}
+
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+
+		return Long.parseLong(value.toString());
+	}
+
+	@Override
+	public float getFloat(int column) {
+		return (float) getDouble(column);
+	}
+
+	@Override
+	public double getDouble(int column) {
+		Object value = getValue(column);
+
+		if (value == null) {
+			return 0;
+		}
+
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+
+		return Double.parseDouble(value.toString());
+	}
+
+	@Override
+	public byte[] getBlob(int column) {
+		return (byte[]) getValue(column);
+	}
+
+	@Override
+	public boolean isNull(int column) {
+		return getValue(column) == null;
+	}
+}
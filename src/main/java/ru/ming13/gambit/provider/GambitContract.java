@@ -30,10 +30,67 @@ public final class GambitContract
 
 	public static final String AUTHORITY = "ru.ming13.gambit";
 
+	public static final class Methods
+	{
+		private Methods() {
+		}
+
+		public static final String SHUFFLE_DECK = "shuffleDeck";
+		public static final String RESET_DECK_ORDER = "resetDeckOrder";
+
+		public static final String REFRESH_CONTENTS = "refreshContents";
+		public static final String GET_CACHE_STATISTICS = "getCacheStatistics";
+	}
+
+	public static final class CacheStatistics
+	{
+		private CacheStatistics() {
+		}
+
+		public static final String HITS_COUNT = "hitsCount";
+		public static final String MISSES_COUNT = "missesCount";
+	}
+
+	public static final class Parameters
+	{
+		private Parameters() {
+		}
+
+		public static final String LIMIT = "limit";
+		public static final String OFFSET = "offset";
+
+		public static final String PAGE_DIRECTION = "page_direction";
+		public static final String PAGE_ORDER_INDEX = "page_order_index";
+		public static final String PAGE_FRONT_SIDE_TEXT = "page_front_side_text";
+		public static final String PAGE_ID = "page_id";
+
+		public static final String NOTIFY = "notify";
+		public static final String CACHE = "cache";
+	}
+
+	public static final class ExportFormats
+	{
+		private ExportFormats() {
+		}
+
+		public static final String CSV = "csv";
+		public static final String JSON = "json";
+	}
+
+	public static final class PageDirections
+	{
+		private PageDirections() {
+		}
+
+		public static final String AFTER = "after";
+		public static final String BEFORE = "before";
+	}
+
 	private interface DecksColumns
 	{
 		String TITLE = DatabaseSchema.DecksColumns.TITLE;
 		String CURRENT_CARD_INDEX = DatabaseSchema.DecksColumns.CURRENT_CARD_INDEX;
+		String SHUFFLE_SEED = DatabaseSchema.DecksColumns.SHUFFLE_SEED;
 	}
 
 	public static final class Decks implements BaseColumns, DecksColumns
@@ -47,6 +104,7 @@ public final class GambitContract
 			}
 
 			public static final int CURRENT_CARD_INDEX = 0;
+			public static final long SHUFFLE_SEED = 0;
 		}
 
 		public static Uri getDecksUri() {
@@ -60,6 +118,20 @@ public final class GambitContract
 		public static long getDeckId(Uri deckUri) {
 			return parseId(deckUri);
 		}
+
+		public static Uri getDeckExportUri(long deckId, String exportFormat) {
+			return buildContentUri(getPathsBuilder().buildDeckExportPath(String.valueOf(deckId), exportFormat));
+		}
+
+		public static long getExportedDeckId(Uri deckExportUri) {
+			final int deckIdSegmentPosition = 1;
+
+			return parseId(deckExportUri, deckIdSegmentPosition);
+		}
+
+		public static String getExportFormat(Uri deckExportUri) {
+			return deckExportUri.getLastPathSegment();
+		}
 	}
 
 	private interface CardsColumns
@@ -83,10 +155,59 @@ public final class GambitContract
 			public static final int ORDER_INDEX = 0;
 		}
 
+		public static final class Projections
+		{
+			private Projections() {
+			}
+
+			public static final String[] LIST = {_ID, FRONT_SIDE_TEXT, BACK_SIDE_TEXT};
+			public static final String[] PAGER = {_ID, FRONT_SIDE_TEXT, ORDER_INDEX};
+			public static final String[] BACK_SIDE = {BACK_SIDE_TEXT};
+		}
+
 		public static Uri getCardsUri(long deckId) {
 			return buildContentUri(getPathsBuilder().buildCardsPath(String.valueOf(deckId)));
 		}
 
+		public static Uri getCardsUri(long deckId, int limit, int offset) {
+			return getCardsUri(deckId).buildUpon()
+				.appendQueryParameter(Parameters.LIMIT, String.valueOf(limit))
+				.appendQueryParameter(Parameters.OFFSET, String.valueOf(offset))
+				.build();
+		}
+
+		public static Uri getCardsImportUri(long deckId) {
+			// Imports notify observers once they are done, not after every batch
+
+			return getCardsUri(deckId).buildUpon()
+				.appendQueryParameter(Parameters.NOTIFY, String.valueOf(false))
+				.build();
+		}
+
+		public static Uri getCardsAfterUri(long deckId, long orderIndex, String frontSideText, long cardId, int limit) {
+			return getCardsPageUri(deckId, PageDirections.AFTER, orderIndex, frontSideText, cardId, limit);
+		}
+
+		public static Uri getCardsBeforeUri(long deckId, long orderIndex, String frontSideText, long cardId, int limit) {
+			return getCardsPageUri(deckId, PageDirections.BEFORE, orderIndex, frontSideText, cardId, limit);
+		}
+
+		private static Uri getCardsPageUri(long deckId, String pageDirection, long orderIndex, String frontSideText, long cardId, int limit) {
+			// Pages are keyed and sorted by order index, front side text and id
+
+			return getCardsUri(deckId).buildUpon()
+				.appendQueryParameter(Parameters.LIMIT, String.valueOf(limit))
+				.appendQueryParameter(Parameters.PAGE_DIRECTION, pageDirection)
+				.appendQueryParameter(Parameters.PAGE_ORDER_INDEX, String.valueOf(orderIndex))
+				.appendQueryParameter(Parameters.PAGE_FRONT_SIDE_TEXT, frontSideText)
+				.appendQueryParameter(Parameters.PAGE_ID, String.valueOf(cardId))
+				.build();
+		}
+
+		public static Uri getCardsSearchUri(long deckId, String searchText) {
+			return buildContentUri(getPathsBuilder().buildCardsSearchPath(String.valueOf(deckId), Uri.encode(searchText)));
+		}
+
 		public static Uri getCardUri(long deckId, long cardId) {
 			return buildContentUri(getPathsBuilder().buildCardPath(String.valueOf(deckId), String.valueOf(cardId)));
 		}
@@ -100,6 +221,10 @@ public final class GambitContract
 		public static long getCardId(Uri cardUri) {
 			return parseId(cardUri);
 		}
+
+		public static String getSearchText(Uri cardsSearchUri) {
+			return cardsSearchUri.getLastPathSegment();
+		}
 	}
 
 	private static Uri buildContentUri() {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.provider;
+
+import android.content.ContentProvider;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+import android.util.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+final class GambitExportWriter implements ContentProvider.PipeDataWriter<Cursor>
+{
+	private static final class Csv
+	{
+		private Csv() {
+		}
+
+		public static final char DELIMITER = ',';
+		public static final char QUOTE = '"';
+		public static final String QUOTE_ESCAPED = "\"\"";
+		public static final String RECORD_SEPARATOR = "\r\n";
+		public static final String SPECIAL_CHARACTERS = ",\"\r\n";
+	}
+
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	@Override
+	public void writeDataToPipe(@NonNull ParcelFileDescriptor output, @NonNull Uri uri, @NonNull String mimeType, Bundle options, Cursor cardsCursor) {
+		// Rows go to the pipe as the cursor reads them, the deck is never held in memory as a whole
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output.getFileDescriptor()), CHARSET));
+
+		try {
+			switch (GambitContract.Decks.getExportFormat(uri)) {
+				case GambitContract.ExportFormats.CSV:
+					writeCsv(writer, cardsCursor);
+					break;
+
+				case GambitContract.ExportFormats.JSON:
+					writeJson(writer, cardsCursor);
+					break;
+
+				default:
+					break;
+			}
+
+			writer.flush();
+		} catch (IOException e) {
+			// The reading side has gone away, there is nobody left to report to
+		} finally {
+			cardsCursor.close();
+		}
+	}
+
+	private void writeCsv(Writer writer, Cursor cardsCursor) throws IOException {
+		while (cardsCursor.moveToNext()) {
+			for (int columnPosition = 0; columnPosition < cardsCursor.getColumnCount(); columnPosition++) {
+				if (columnPosition > 0) {
+					writer.write(Csv.DELIMITER);
+				}
+
+				writeCsvField(writer, cardsCursor.getString(columnPosition));
+			}
+
+			writer.write(Csv.RECORD_SEPARATOR);
+		}
+	}
+
+	private void writeCsvField(Writer writer, String field) throws IOException {
+		if (!isCsvQuotingRequired(field)) {
+			writer.write(field);
+			return;
+		}
+
+		writer.write(Csv.QUOTE);
+		writer.write(field.replace(String.valueOf(Csv.QUOTE), Csv.QUOTE_ESCAPED));
+		writer.write(Csv.QUOTE);
+	}
+
+	private boolean isCsvQuotingRequired(String field) {
+		for (int characterPosition = 0; characterPosition < field.length(); characterPosition++) {
+			if (Csv.SPECIAL_CHARACTERS.indexOf(field.charAt(characterPosition)) >= 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void writeJson(Writer writer, Cursor cardsCursor) throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(writer);
+
+		jsonWriter.beginArray();
+
+		while (cardsCursor.moveToNext()) {
+			jsonWriter.beginObject();
+
+			for (int columnPosition = 0; columnPosition < cardsCursor.getColumnCount(); columnPosition++) {
+				jsonWriter.name(cardsCursor.getColumnName(columnPosition)).value(cardsCursor.getString(columnPosition));
+			}
+
+			jsonWriter.endObject();
+		}
+
+		jsonWriter.endArray();
+
+		jsonWriter.flush();
+	}
+}
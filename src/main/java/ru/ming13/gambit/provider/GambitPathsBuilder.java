@@ -25,6 +25,8 @@ final class GambitPathsBuilder
 
 		public static final String DECKS = "decks";
 		public static final String CARDS = "cards";
+		public static final String SEARCH = "search";
+		public static final String EXPORT = "export";
 	}
 
 	public String buildDecksPath() {
@@ -35,6 +37,10 @@ final class GambitPathsBuilder
 		return String.format("%s/%s", Segments.DECKS, deckNumber);
 	}
 
+	public String buildDeckExportPath(String deckNumber, String exportFormat) {
+		return String.format("%s/%s/%s/%s", Segments.DECKS, deckNumber, Segments.EXPORT, exportFormat);
+	}
+
 	public String buildCardsPath(String deckNumber) {
 		return String.format("%s/%s/%s", Segments.DECKS, deckNumber, Segments.CARDS);
 	}
@@ -42,4 +48,8 @@ final class GambitPathsBuilder
 	public String buildCardPath(String deckNumber, String cardNumber) {
 		return String.format("%s/%s/%s/%s", Segments.DECKS, deckNumber, Segments.CARDS, cardNumber);
 	}
+
+	public String buildCardsSearchPath(String deckNumber, String searchText) {
+		return String.format("%s/%s/%s/%s/%s", Segments.DECKS, deckNumber, Segments.CARDS, Segments.SEARCH, searchText);
+	}
 }
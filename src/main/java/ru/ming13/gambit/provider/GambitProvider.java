@@ -24,14 +24,26 @@ import android.content.ContentValues;
 import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.MatrixCursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
-import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
 import android.support.annotation.NonNull;
+import android.text.TextUtils;
 
+import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import ru.ming13.gambit.database.DatabaseOpenHelper;
 import ru.ming13.gambit.database.DatabaseSchema;
@@ -39,33 +51,255 @@ import ru.ming13.gambit.util.SqlBuilder;
 
 public class GambitProvider extends ContentProvider
 {
-	private SQLiteOpenHelper databaseHelper;
+	private static final class Sorting
+	{
+		private Sorting() {
+		}
+
+		public static final String ASCENDING = "asc";
+		public static final String DESCENDING = "desc";
+
+		public static final String[] CARDS_PAGE_FIELDS = {
+			DatabaseSchema.CardsColumns.ORDER_INDEX,
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+			DatabaseSchema.CardsColumns._ID
+		};
+	}
+
+	private static final class Exporting
+	{
+		private Exporting() {
+		}
+
+		public static final String MODE = "r";
+
+		public static final String FILE_NAME_MASK = "%s.%s";
+
+		public static final String[] COLUMNS = {
+			OpenableColumns.DISPLAY_NAME,
+			OpenableColumns.SIZE
+		};
+
+		public static final String[] CARDS_COLUMNS = {
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.BACK_SIDE_TEXT
+		};
+
+		public static final String[] CARDS_SORTING_FIELDS = {
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+			DatabaseSchema.CardsColumns._ID
+		};
+	}
+
+	private static final class MimeTypes
+	{
+		private MimeTypes() {
+		}
+
+		public static final String CSV = "text/csv";
+		public static final String JSON = "application/json";
+	}
+
+	private static final class Caching
+	{
+		private Caching() {
+		}
+
+		public static final int MEMORY_FRACTION = 32;
+	}
+
+	private static final class Searching
+	{
+		private Searching() {
+		}
+
+		public static final String TERMS_DELIMITER = "[^\\p{L}\\p{N}]+";
+		public static final String TERM_PREFIX_MASK = "%s*";
+	}
+
+	private DatabaseOpenHelper databaseHelper;
 	private UriMatcher uriMatcher;
+	private GambitQueryCache queryCache;
+
+	private final ThreadLocal<Set<Uri>> batchChangedUris = new ThreadLocal<>();
 
 	@Override
 	public boolean onCreate() {
 		databaseHelper = new DatabaseOpenHelper(getContext());
 		uriMatcher = GambitUriMatcher.getMatcher();
+		queryCache = new GambitQueryCache((int) (Runtime.getRuntime().maxMemory() / Caching.MEMORY_FRACTION));
 
 		return true;
 	}
 
 	@Override
 	public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArguments, String sortOrder) {
-		Cursor cursor = buildQueryBuilder(uri).query(
-			databaseHelper.getReadableDatabase(),
-			projection,
-			selection,
-			selectionArguments,
-			null,
-			null,
-			sortOrder);
+		Cursor cursor = queryCachedContents(uri, projection, selection, selectionArguments, sortOrder);
 
-		cursor.setNotificationUri(getContentResolver(), uri);
+		cursor.setNotificationUri(getContentResolver(), getNotificationUri(uri));
 
 		return cursor;
 	}
 
+	private Uri getNotificationUri(Uri uri) {
+		if (uriMatcher.match(uri) != GambitUriMatcher.Codes.CARDS_SEARCH) {
+			return uri;
+		}
+
+		// Cards changes are notified at cards and card URIs, search results should follow both
+
+		return GambitContract.Cards.getCardsUri(GambitContract.Cards.getDeckId(uri));
+	}
+
+	private Cursor queryCachedContents(Uri uri, String[] projection, String selection, String[] selectionArguments, String sortOrder) {
+		// Loaders restart on rotations and returns to screens, results stay valid until a write touches them
+
+		if (!isCachingRequired(uri)) {
+			return queryContents(uri, projection, selection, selectionArguments, sortOrder);
+		}
+
+		String cacheKey = GambitQueryCache.buildKey(uri, projection, selection, selectionArguments, sortOrder);
+
+		Cursor cursor = queryCache.get(cacheKey);
+
+		if (cursor != null) {
+			return cursor;
+		}
+
+		long cacheGeneration = queryCache.getGeneration();
+
+		return queryCache.put(cacheKey, uri, queryContents(uri, projection, selection, selectionArguments, sortOrder), cacheGeneration);
+	}
+
+	private boolean isCachingRequired(Uri uri) {
+		if (uriMatcher.match(uri) == GambitUriMatcher.Codes.DECK_EXPORT) {
+			return false;
+		}
+
+		return uri.getBooleanQueryParameter(GambitContract.Parameters.CACHE, true);
+	}
+
+	private Cursor queryContents(Uri uri, String[] projection, String selection, String[] selectionArguments, String sortOrder) {
+		SQLiteDatabase database = databaseHelper.getReadableDatabase();
+
+		if (uriMatcher.match(uri) == GambitUriMatcher.Codes.DECK_EXPORT) {
+			return queryDeckExport(database, uri, projection);
+		}
+
+		SQLiteQueryBuilder queryBuilder = buildQueryBuilder(uri);
+
+		String limit = buildLimitClause(uri);
+
+		if (limit == null) {
+			return queryBuilder.query(database, projection, selection, selectionArguments, null, null, sortOrder, null);
+		}
+
+		String pageDirection = uri.getQueryParameter(GambitContract.Parameters.PAGE_DIRECTION);
+
+		if (pageDirection == null) {
+			return queryBuilder.query(database, projection, selection, selectionArguments, null, null, buildPageSortOrder(sortOrder), limit);
+		}
+
+		if (uriMatcher.match(uri) != GambitUriMatcher.Codes.CARDS) {
+			throw new IllegalArgumentException(buildUnsupportedUriDetailMessage(uri));
+		}
+
+		switch (pageDirection) {
+			case GambitContract.PageDirections.AFTER:
+				String nextPageQuery = buildCardsPageQuery(uri, projection, selection, ">", Sorting.ASCENDING, limit);
+
+				return database.rawQuery(nextPageQuery, buildCardsPageSelectionArguments(selectionArguments));
+
+			case GambitContract.PageDirections.BEFORE:
+				// Walk the index backwards, but return the page in the usual order
+
+				String previousPageQuery = buildCardsPageQuery(uri, projection, selection, "<", Sorting.DESCENDING, limit);
+
+				return database.rawQuery(SqlBuilder.buildSortingClause(previousPageQuery, buildCardsPageSortOrder(Sorting.ASCENDING)), buildCardsPageSelectionArguments(selectionArguments));
+
+			default:
+				throw new IllegalArgumentException(buildUnsupportedUriDetailMessage(uri));
+		}
+	}
+
+	private String buildCardsPageQuery(Uri cardsUri, String[] projection, String selection, String comparison, String sortDirection, String limit) {
+		// Cards mostly share the same order index, so a single disjunction would filter the deck
+		// from its start. Every keyset branch is a separate seek instead, the page is taken from
+		// their first rows. The projection has to contain the page key fields to sort them.
+
+		String[] keysetClauses = buildCardsPageSelectionClauses(cardsUri, comparison);
+		String[] keysetQueries = new String[keysetClauses.length];
+
+		String sortOrder = buildCardsPageSortOrder(sortDirection);
+
+		for (int keysetPosition = 0; keysetPosition < keysetClauses.length; keysetPosition++) {
+			SQLiteQueryBuilder queryBuilder = buildQueryBuilder(cardsUri);
+			queryBuilder.appendWhere(String.format(" and (%s)", keysetClauses[keysetPosition]));
+
+			keysetQueries[keysetPosition] = queryBuilder.buildQuery(projection, selection, null, null, sortOrder, limit);
+		}
+
+		return SqlBuilder.buildUnionClause(keysetQueries, sortOrder, limit);
+	}
+
+	private String[] buildCardsPageSelectionArguments(String[] selectionArguments) {
+		// Every keyset branch has its own copy of the selection
+
+		if (selectionArguments == null) {
+			return null;
+		}
+
+		String[] pageSelectionArguments = new String[selectionArguments.length * Sorting.CARDS_PAGE_FIELDS.length];
+
+		for (int keysetPosition = 0; keysetPosition < Sorting.CARDS_PAGE_FIELDS.length; keysetPosition++) {
+			System.arraycopy(selectionArguments, 0, pageSelectionArguments, keysetPosition * selectionArguments.length, selectionArguments.length);
+		}
+
+		return pageSelectionArguments;
+	}
+
+	private Cursor queryDeckExport(SQLiteDatabase database, Uri deckExportUri, String[] projection) {
+		// Apps receiving a shared export ask for its name and size like for any other openable file
+
+		if (projection == null) {
+			projection = Exporting.COLUMNS;
+		}
+
+		MatrixCursor deckExportCursor = new MatrixCursor(projection, 1);
+		MatrixCursor.RowBuilder deckExportRow = deckExportCursor.newRow();
+
+		for (String column : projection) {
+			switch (column) {
+				case OpenableColumns.DISPLAY_NAME:
+					deckExportRow.add(buildDeckExportFileName(database, deckExportUri));
+					break;
+
+				default:
+					deckExportRow.add(null);
+					break;
+			}
+		}
+
+		return deckExportCursor;
+	}
+
+	private String buildDeckExportFileName(SQLiteDatabase database, Uri deckExportUri) {
+		Cursor deckCursor = database.query(DatabaseSchema.Tables.DECKS,
+			new String[] {DatabaseSchema.DecksColumns.TITLE},
+			SqlBuilder.buildSelectionClause(DatabaseSchema.DecksColumns._ID, GambitContract.Decks.getExportedDeckId(deckExportUri)),
+			null, null, null, null);
+
+		try {
+			if (!deckCursor.moveToFirst()) {
+				return null;
+			}
+
+			return String.format(Exporting.FILE_NAME_MASK, deckCursor.getString(0), GambitContract.Decks.getExportFormat(deckExportUri));
+		} finally {
+			deckCursor.close();
+		}
+	}
+
 	private SQLiteQueryBuilder buildQueryBuilder(Uri uri) {
 		SQLiteQueryBuilder queryBuilder = new SQLiteQueryBuilder();
 
@@ -89,6 +323,12 @@ public class GambitProvider extends ContentProvider
 				queryBuilder.appendWhere(buildCardSelectionClause(uri));
 				break;
 
+			case GambitUriMatcher.Codes.CARDS_SEARCH:
+				queryBuilder.setTables(DatabaseSchema.Tables.CARDS);
+				queryBuilder.appendWhere(buildCardsSelectionClause(uri));
+				queryBuilder.appendWhere(buildCardsSearchSelectionClause(uri));
+				break;
+
 			default:
 				throw new IllegalArgumentException(buildUnsupportedUriDetailMessage(uri));
 		}
@@ -96,6 +336,39 @@ public class GambitProvider extends ContentProvider
 		return queryBuilder;
 	}
 
+	private String buildLimitClause(Uri uri) {
+		String limit = uri.getQueryParameter(GambitContract.Parameters.LIMIT);
+		String offset = uri.getQueryParameter(GambitContract.Parameters.OFFSET);
+
+		if (limit == null) {
+			return null;
+		}
+
+		return SqlBuilder.buildLimitClause(offset, limit);
+	}
+
+	private String buildPageSortOrder(String sortOrder) {
+		if (sortOrder != null) {
+			return sortOrder;
+		}
+
+		return buildCardsPageSortOrder(Sorting.ASCENDING);
+	}
+
+	private String buildCardsPageSortOrder(String sortDirection) {
+		return SqlBuilder.buildSortOrderClause(sortDirection, Sorting.CARDS_PAGE_FIELDS);
+	}
+
+	private String[] buildCardsPageSelectionClauses(Uri cardsUri, String comparison) {
+		String[] cardKey = {
+			String.valueOf(Long.valueOf(cardsUri.getQueryParameter(GambitContract.Parameters.PAGE_ORDER_INDEX))),
+			DatabaseUtils.sqlEscapeString(cardsUri.getQueryParameter(GambitContract.Parameters.PAGE_FRONT_SIDE_TEXT)),
+			String.valueOf(Long.valueOf(cardsUri.getQueryParameter(GambitContract.Parameters.PAGE_ID)))
+		};
+
+		return SqlBuilder.buildKeysetSelectionClauses(comparison, Sorting.CARDS_PAGE_FIELDS, cardKey);
+	}
+
 	private String buildDeckSelectionClause(Uri deckUri) {
 		long deckId = GambitContract.Decks.getDeckId(deckUri);
 
@@ -114,6 +387,36 @@ public class GambitProvider extends ContentProvider
 		return SqlBuilder.buildSelectionClause(DatabaseSchema.CardsColumns._ID, cardId);
 	}
 
+	private String buildCardsSearchSelectionClause(Uri cardsSearchUri) {
+		String searchExpression = buildCardsSearchExpression(GambitContract.Cards.getSearchText(cardsSearchUri));
+
+		if (searchExpression.isEmpty()) {
+			return searchExpression;
+		}
+
+		// Full text index gives card ids, cards are fetched by their primary key after that
+
+		return String.format(" and (%s)", SqlBuilder.buildSubquerySelectionClause(
+			DatabaseSchema.CardsColumns._ID,
+			DatabaseSchema.CardsSearchColumns.DOCUMENT_ID,
+			DatabaseSchema.Tables.CARDS_SEARCH,
+			SqlBuilder.buildMatchClause(DatabaseSchema.Tables.CARDS_SEARCH, DatabaseUtils.sqlEscapeString(searchExpression))));
+	}
+
+	private String buildCardsSearchExpression(String searchText) {
+		// Query syntax characters are dropped, every word matches as a prefix
+
+		List<String> searchTerms = new ArrayList<>();
+
+		for (String searchTerm : searchText.split(Searching.TERMS_DELIMITER)) {
+			if (!searchTerm.isEmpty()) {
+				searchTerms.add(String.format(Searching.TERM_PREFIX_MASK, searchTerm));
+			}
+		}
+
+		return TextUtils.join(" ", searchTerms);
+	}
+
 	private String buildUnsupportedUriDetailMessage(Uri unsupportedUri) {
 		return String.format("Unsupported URI: %s", unsupportedUri.toString());
 	}
@@ -122,16 +425,80 @@ public class GambitProvider extends ContentProvider
 		return getContext().getContentResolver();
 	}
 
+	private void notifyChange(Uri uri) {
+		Set<Uri> changedUris = batchChangedUris.get();
+
+		if (changedUris != null) {
+			changedUris.add(uri);
+		} else {
+			invalidateContents(uri);
+
+			getContentResolver().notifyChange(uri, null);
+		}
+	}
+
+	private void invalidateContents(Uri uri) {
+		// Changed contents and everything below them go away, a card also affects its siblings through lists and searches
+
+		queryCache.invalidateTree(uri);
+
+		Uri parentUri = getParentUri(uri);
+
+		if (parentUri == null) {
+			return;
+		}
+
+		if (uriMatcher.match(uri) == GambitUriMatcher.Codes.CARD) {
+			queryCache.invalidateTree(parentUri);
+		} else {
+			queryCache.invalidatePath(parentUri);
+		}
+	}
+
 	@Override
 	public String getType(Uri uri) {
-		return null;
+		if (uriMatcher.match(uri) != GambitUriMatcher.Codes.DECK_EXPORT) {
+			return null;
+		}
+
+		switch (GambitContract.Decks.getExportFormat(uri)) {
+			case GambitContract.ExportFormats.CSV:
+				return MimeTypes.CSV;
+
+			case GambitContract.ExportFormats.JSON:
+				return MimeTypes.JSON;
+
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+		String mimeType = getType(uri);
+
+		if ((mimeType == null) || !mode.equals(Exporting.MODE)) {
+			throw new FileNotFoundException(buildUnsupportedUriDetailMessage(uri));
+		}
+
+		return openPipeHelper(uri, mimeType, null, queryDeckExportCards(uri), new GambitExportWriter());
+	}
+
+	private Cursor queryDeckExportCards(Uri deckExportUri) {
+		SQLiteDatabase database = databaseHelper.getReadableDatabase();
+
+		return database.query(DatabaseSchema.Tables.CARDS,
+			Exporting.CARDS_COLUMNS,
+			SqlBuilder.buildSelectionClause(DatabaseSchema.CardsColumns.DECK_ID, GambitContract.Decks.getExportedDeckId(deckExportUri)),
+			null, null, null,
+			SqlBuilder.buildSortOrderClause(Sorting.ASCENDING, Exporting.CARDS_SORTING_FIELDS));
 	}
 
 	@Override
 	public Uri insert(Uri uri, ContentValues contentValues) {
 		Uri insertedContentsUri = insertContents(uri, contentValues);
 
-		getContentResolver().notifyChange(insertedContentsUri, null);
+		notifyChange(insertedContentsUri);
 
 		return insertedContentsUri;
 	}
@@ -164,11 +531,84 @@ public class GambitProvider extends ContentProvider
 		return GambitContract.Cards.getCardUri(deckId, cardId);
 	}
 
+	@Override
+	public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] contentValues) {
+		int insertedCount = bulkInsertContents(uri, contentValues);
+
+		if (isNotificationRequired(uri)) {
+			notifyChange(uri);
+		} else {
+			invalidateContents(uri);
+		}
+
+		databaseHelper.checkpointPassively();
+
+		return insertedCount;
+	}
+
+	private boolean isNotificationRequired(Uri uri) {
+		return uri.getBooleanQueryParameter(GambitContract.Parameters.NOTIFY, true);
+	}
+
+	private int bulkInsertContents(Uri uri, ContentValues[] contentValues) {
+		SQLiteDatabase database = databaseHelper.getWritableDatabase();
+
+		switch (uriMatcher.match(uri)) {
+			case GambitUriMatcher.Codes.CARDS:
+				return insertCards(database, uri, contentValues);
+
+			default:
+				throw new IllegalArgumentException(buildUnsupportedUriDetailMessage(uri));
+		}
+	}
+
+	private int insertCards(SQLiteDatabase database, Uri cardsUri, ContentValues[] cardsValues) {
+		long deckId = GambitContract.Cards.getDeckId(cardsUri);
+
+		SQLiteStatement cardInsertionStatement = database.compileStatement(SqlBuilder.buildValuesInsertionClause(
+			DatabaseSchema.Tables.CARDS,
+			DatabaseSchema.CardsColumns.DECK_ID,
+			DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.BACK_SIDE_TEXT,
+			DatabaseSchema.CardsColumns.ORDER_INDEX));
+
+		try {
+			database.beginTransaction();
+
+			for (ContentValues cardValues : cardsValues) {
+				cardInsertionStatement.clearBindings();
+
+				cardInsertionStatement.bindLong(1, deckId);
+				cardInsertionStatement.bindString(2, cardValues.getAsString(DatabaseSchema.CardsColumns.FRONT_SIDE_TEXT));
+				cardInsertionStatement.bindString(3, cardValues.getAsString(DatabaseSchema.CardsColumns.BACK_SIDE_TEXT));
+				cardInsertionStatement.bindLong(4, getCardOrderIndex(cardValues));
+
+				cardInsertionStatement.executeInsert();
+			}
+
+			database.setTransactionSuccessful();
+
+			return cardsValues.length;
+		} finally {
+			database.endTransaction();
+
+			cardInsertionStatement.close();
+		}
+	}
+
+	private long getCardOrderIndex(ContentValues cardValues) {
+		if (cardValues.containsKey(DatabaseSchema.CardsColumns.ORDER_INDEX)) {
+			return cardValues.getAsLong(DatabaseSchema.CardsColumns.ORDER_INDEX);
+		} else {
+			return DatabaseSchema.CardsColumnsDefaultValues.ORDER_INDEX;
+		}
+	}
+
 	@Override
 	public int delete(Uri uri, String selection, String[] selectionArguments) {
 		int deletedCount = deleteContents(uri);
 
-		getContentResolver().notifyChange(uri, null);
+		notifyChange(uri);
 
 		return deletedCount;
 	}
@@ -200,7 +640,7 @@ public class GambitProvider extends ContentProvider
 	public int update(Uri uri, ContentValues contentValues, String selection, String[] selectionArguments) {
 		int updatedCount = updateContents(uri, contentValues);
 
-		getContentResolver().notifyChange(uri, null);
+		notifyChange(uri);
 
 		return updatedCount;
 	}
@@ -238,6 +678,78 @@ public class GambitProvider extends ContentProvider
 
 	@Override
 	public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
+		Set<Uri> changedUris = new HashSet<>();
+
+		batchChangedUris.set(changedUris);
+
+		try {
+			ContentProviderResult[] results = applyOperations(operations);
+
+			databaseHelper.checkpointPassively();
+
+			batchChangedUris.remove();
+
+			for (Uri notificationUri : buildNotificationUris(changedUris)) {
+				notifyChange(notificationUri);
+			}
+
+			return results;
+		} finally {
+			batchChangedUris.remove();
+		}
+	}
+
+	private Set<Uri> buildNotificationUris(Set<Uri> changedUris) {
+		// Observers of a parent URI hear about its descendants, so siblings collapse into the parent
+
+		Map<Uri, Set<Uri>> changedUrisByParent = new HashMap<>();
+
+		for (Uri changedUri : changedUris) {
+			Uri parentUri = getParentUri(changedUri);
+
+			if (!changedUrisByParent.containsKey(parentUri)) {
+				changedUrisByParent.put(parentUri, new HashSet<Uri>());
+			}
+
+			changedUrisByParent.get(parentUri).add(changedUri);
+		}
+
+		Set<Uri> notificationUris = new HashSet<>();
+
+		for (Map.Entry<Uri, Set<Uri>> changedUrisGroup : changedUrisByParent.entrySet()) {
+			if ((changedUrisGroup.getKey() != null) && (changedUrisGroup.getValue().size() > 1)) {
+				notificationUris.add(changedUrisGroup.getKey());
+			} else {
+				notificationUris.addAll(changedUrisGroup.getValue());
+			}
+		}
+
+		Set<Uri> coveredNotificationUris = new HashSet<>();
+
+		for (Uri notificationUri : notificationUris) {
+			for (Uri ancestorUri = getParentUri(notificationUri); ancestorUri != null; ancestorUri = getParentUri(ancestorUri)) {
+				if (notificationUris.contains(ancestorUri)) {
+					coveredNotificationUris.add(notificationUri);
+				}
+			}
+		}
+
+		notificationUris.removeAll(coveredNotificationUris);
+
+		return notificationUris;
+	}
+
+	private Uri getParentUri(Uri uri) {
+		List<String> pathSegments = uri.getPathSegments();
+
+		if (pathSegments.size() <= 1) {
+			return null;
+		}
+
+		return uri.buildUpon().path(TextUtils.join("/", pathSegments.subList(0, pathSegments.size() - 1))).build();
+	}
+
+	private ContentProviderResult[] applyOperations(ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
 		SQLiteDatabase database = databaseHelper.getWritableDatabase();
 
 		try {
@@ -257,4 +769,89 @@ public class GambitProvider extends ContentProvider
 			database.endTransaction();
 		}
 	}
+
+	@Override
+	public Bundle call(@NonNull String method, String argument, Bundle extras) {
+		switch (method) {
+			case GambitContract.Methods.REFRESH_CONTENTS:
+				refreshContents();
+				return null;
+
+			case GambitContract.Methods.GET_CACHE_STATISTICS:
+				return getCacheStatistics();
+
+			default:
+				return callDeckMethod(method, argument, extras);
+		}
+	}
+
+	private void refreshContents() {
+		// Backups are restored past the provider, nothing cached can be trusted after that
+
+		queryCache.invalidateAll();
+
+		notifyChange(GambitContract.Decks.getDecksUri());
+	}
+
+	private Bundle getCacheStatistics() {
+		Bundle cacheStatistics = new Bundle();
+
+		cacheStatistics.putInt(GambitContract.CacheStatistics.HITS_COUNT, queryCache.getHitsCount());
+		cacheStatistics.putInt(GambitContract.CacheStatistics.MISSES_COUNT, queryCache.getMissesCount());
+
+		return cacheStatistics;
+	}
+
+	private Bundle callDeckMethod(String method, String argument, Bundle extras) {
+		switch (method) {
+			case GambitContract.Methods.SHUFFLE_DECK:
+				changeDeckShuffleSeed(getDeckId(method, argument), getDeckShuffleSeed(method, extras));
+				break;
+
+			case GambitContract.Methods.RESET_DECK_ORDER:
+				changeDeckShuffleSeed(getDeckId(method, argument), GambitContract.Decks.Defaults.SHUFFLE_SEED);
+				break;
+
+			default:
+				return super.call(method, argument, extras);
+		}
+
+		notifyChange(GambitContract.Decks.getDeckUri(getDeckId(method, argument)));
+
+		return null;
+	}
+
+	private long getDeckId(String method, String argument) {
+		try {
+			return Long.parseLong(argument);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(buildUnsupportedArgumentDetailMessage(method, argument));
+		}
+	}
+
+	private String buildUnsupportedArgumentDetailMessage(String method, String argument) {
+		return String.format("Unsupported deck ID for %s: %s", method, argument);
+	}
+
+	private long getDeckShuffleSeed(String method, Bundle extras) {
+		if ((extras == null) || !extras.containsKey(GambitContract.Decks.SHUFFLE_SEED)) {
+			throw new IllegalArgumentException(buildMissingExtraDetailMessage(method, GambitContract.Decks.SHUFFLE_SEED));
+		}
+
+		return extras.getLong(GambitContract.Decks.SHUFFLE_SEED);
+	}
+
+	private String buildMissingExtraDetailMessage(String method, String extra) {
+		return String.format("Missing extra for %s: %s", method, extra);
+	}
+
+	private void changeDeckShuffleSeed(long deckId, long deckShuffleSeed) {
+		SQLiteDatabase database = databaseHelper.getWritableDatabase();
+
+		ContentValues deckValues = new ContentValues();
+		deckValues.put(DatabaseSchema.DecksColumns.SHUFFLE_SEED, deckShuffleSeed);
+
+		database.update(DatabaseSchema.Tables.DECKS, deckValues,
+			SqlBuilder.buildSelectionClause(DatabaseSchema.DecksColumns._ID, deckId), null);
+	}
 }
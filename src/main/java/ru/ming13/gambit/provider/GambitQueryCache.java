@@ -0,0 +1,235 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.provider;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+final class GambitQueryCache
+{
+	private static final class Sizes
+	{
+		private Sizes() {
+		}
+
+		public static final int ROW = 16;
+		public static final int NUMBER = 16;
+		public static final int CHARACTER = 2;
+	}
+
+	private static final class Limits
+	{
+		private Limits() {
+		}
+
+		public static final int ROWS_COUNT = 1000;
+	}
+
+	private static final class Entry
+	{
+		public final Uri uri;
+
+		public final String[] columns;
+		public final Object[][] rows;
+
+		public final int size;
+
+		public Entry(Uri uri, String[] columns, Object[][] rows, int size) {
+			this.uri = uri;
+
+			this.columns = columns;
+			this.rows = rows;
+
+			this.size = size;
+		}
+	}
+
+	private final LruCache<String, Entry> entries;
+	private final int entryMaximumSize;
+
+	private long generation;
+
+	public GambitQueryCache(int maximumSize) {
+		this.entries = new LruCache<String, Entry>(maximumSize) {
+			@Override
+			protected int sizeOf(String key, Entry entry) {
+				return entry.size;
+			}
+		};
+
+		this.entryMaximumSize = maximumSize / 4;
+	}
+
+	public static String buildKey(Uri uri, String[] projection, String selection, String[] selectionArguments, String sortOrder) {
+		return TextUtils.join("|", new String[] {
+			uri.toString(),
+			Arrays.toString(projection),
+			String.valueOf(selection),
+			Arrays.toString(selectionArguments),
+			String.valueOf(sortOrder)
+		});
+	}
+
+	public Cursor get(String key) {
+		Entry entry = entries.get(key);
+
+		if (entry == null) {
+			return null;
+		}
+
+		return new GambitCachedCursor(entry.columns, entry.rows);
+	}
+
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	public Cursor put(String key, Uri uri, Cursor cursor, long cursorGeneration) {
+		// Large results stay with SQLite cursor windows, copying them would cost more than the query.
+		// Long results are left before copying, wide ones are left once they outgrow the entry size.
+
+		if (cursor.getCount() > Limits.ROWS_COUNT) {
+			return cursor;
+		}
+
+		String[] columns = cursor.getColumnNames();
+		List<Object[]> rows = new ArrayList<>();
+
+		int size = 0;
+
+		while (cursor.moveToNext()) {
+			Object[] row = new Object[columns.length];
+
+			size += Sizes.ROW;
+
+			for (int column = 0; column < columns.length; column++) {
+				row[column] = getValue(cursor, column);
+
+				size += getValueSize(row[column]);
+			}
+
+			if (size > entryMaximumSize) {
+				cursor.moveToPosition(-1);
+
+				return cursor;
+			}
+
+			rows.add(row);
+		}
+
+		cursor.close();
+
+		Entry entry = new Entry(uri, columns, rows.toArray(new Object[rows.size()][]), Math.max(size, 1));
+
+		synchronized (this) {
+			// Results read while contents were changing are handed out once but not kept
+
+			if (cursorGeneration == generation) {
+				entries.put(key, entry);
+			}
+		}
+
+		return new GambitCachedCursor(entry.columns, entry.rows);
+	}
+
+	private Object getValue(Cursor cursor, int column) {
+		switch (cursor.getType(column)) {
+			case Cursor.FIELD_TYPE_NULL:
+				return null;
+
+			case Cursor.FIELD_TYPE_INTEGER:
+				return cursor.getLong(column);
+
+			case Cursor.FIELD_TYPE_FLOAT:
+				return cursor.getDouble(column);
+
+			case Cursor.FIELD_TYPE_BLOB:
+				return cursor.getBlob(column);
+
+			default:
+				return cursor.getString(column);
+		}
+	}
+
+	private int getValueSize(Object value) {
+		if (value instanceof String) {
+			return ((String) value).length() * Sizes.CHARACTER;
+		}
+
+		if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		}
+
+		return Sizes.NUMBER;
+	}
+
+	public synchronized void invalidatePath(Uri uri) {
+		generation++;
+
+		for (Map.Entry<String, Entry> entry : entries.snapshot().entrySet()) {
+			if (isPathEqual(entry.getValue().uri, uri)) {
+				entries.remove(entry.getKey());
+			}
+		}
+	}
+
+	public synchronized void invalidateTree(Uri uri) {
+		generation++;
+
+		for (Map.Entry<String, Entry> entry : entries.snapshot().entrySet()) {
+			if (isPathDescendant(entry.getValue().uri, uri)) {
+				entries.remove(entry.getKey());
+			}
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+
+		entries.evictAll();
+	}
+
+	private boolean isPathEqual(Uri uri, Uri pathUri) {
+		return uri.getPathSegments().equals(pathUri.getPathSegments());
+	}
+
+	private boolean isPathDescendant(Uri uri, Uri ancestorUri) {
+		List<String> pathSegments = uri.getPathSegments();
+		List<String> ancestorPathSegments = ancestorUri.getPathSegments();
+
+		if (pathSegments.size() < ancestorPathSegments.size()) {
+			return false;
+		}
+
+		return pathSegments.subList(0, ancestorPathSegments.size()).equals(ancestorPathSegments);
+	}
+
+	public int getHitsCount() {
+		return entries.hitCount();
+	}
+
+	public int getMissesCount() {
+		return entries.missCount();
+	}
+}
@@ -29,6 +29,8 @@ final class GambitUriMatcher
 		public static final int DECK = 2;
 		public static final int CARDS = 3;
 		public static final int CARD = 4;
+		public static final int CARDS_SEARCH = 5;
+		public static final int DECK_EXPORT = 6;
 	}
 
 	private static final class Masks
@@ -37,6 +39,7 @@ final class GambitUriMatcher
 		}
 
 		public static final String NUMBER = "#";
+		public static final String TEXT = "*";
 	}
 
 	private final GambitPathsBuilder pathsBuilder;
@@ -56,11 +59,15 @@ final class GambitUriMatcher
 			pathsBuilder.buildDecksPath(), Codes.DECKS);
 		uriMatcher.addURI(GambitContract.AUTHORITY,
 			pathsBuilder.buildDeckPath(Masks.NUMBER), Codes.DECK);
+		uriMatcher.addURI(GambitContract.AUTHORITY,
+			pathsBuilder.buildDeckExportPath(Masks.NUMBER, Masks.TEXT), Codes.DECK_EXPORT);
 
 		uriMatcher.addURI(GambitContract.AUTHORITY,
 			pathsBuilder.buildCardsPath(Masks.NUMBER), Codes.CARDS);
 		uriMatcher.addURI(GambitContract.AUTHORITY,
 			pathsBuilder.buildCardPath(Masks.NUMBER, Masks.NUMBER), Codes.CARD);
+		uriMatcher.addURI(GambitContract.AUTHORITY,
+			pathsBuilder.buildCardsSearchPath(Masks.NUMBER, Masks.TEXT), Codes.CARDS_SEARCH);
 
 		return uriMatcher;
 	}
@@ -19,8 +19,6 @@ package ru.ming13.gambit.task;
 import android.os.AsyncTask;
 import android.support.annotation.NonNull;
 
-import com.google.android.gms.drive.DriveId;
-
 import ru.ming13.gambit.backup.BackupOperator;
 import ru.ming13.gambit.bus.BackupFinishedEvent;
 import ru.ming13.gambit.bus.BusEvent;
@@ -30,21 +28,17 @@ public class BackupExportingTask extends AsyncTask<Void, Void, BusEvent>
 {
 	private final BackupOperator backupOperator;
 
-	private final DriveId backupFileId;
-
-	public static void execute(@NonNull BackupOperator backupOperator, @NonNull DriveId backupFileId) {
-		new BackupExportingTask(backupOperator, backupFileId).execute();
+	public static void execute(@NonNull BackupOperator backupOperator) {
+		new BackupExportingTask(backupOperator).execute();
 	}
 
-	private BackupExportingTask(BackupOperator backupOperator, DriveId backupFileId) {
+	private BackupExportingTask(BackupOperator backupOperator) {
 		this.backupOperator = backupOperator;
-
-		this.backupFileId = backupFileId;
 	}
 
 	@Override
 	protected BusEvent doInBackground(Void... parameters) {
-		backupOperator.exportBackup(backupFileId);
+		backupOperator.exportBackup();
 
 		return new BackupFinishedEvent();
 	}
@@ -19,34 +19,40 @@ package ru.ming13.gambit.task;
 import android.os.AsyncTask;
 import android.support.annotation.NonNull;
 
-import com.google.android.gms.drive.DriveId;
-
 import ru.ming13.gambit.backup.BackupOperator;
-import ru.ming13.gambit.bus.BackupFinishedEvent;
+import ru.ming13.gambit.bus.BackupImportedEvent;
+import ru.ming13.gambit.bus.BackupProgressEvent;
 import ru.ming13.gambit.bus.BusEvent;
 import ru.ming13.gambit.bus.BusProvider;
+import ru.ming13.gambit.database.DatabaseProgressListener;
 
-public class BackupImportingTask extends AsyncTask<Void, Void, BusEvent>
+public class BackupImportingTask extends AsyncTask<Void, BackupProgressEvent, BusEvent> implements DatabaseProgressListener
 {
 	private final BackupOperator backupOperator;
 
-	private final DriveId backupFileId;
-
-	public static void execute(@NonNull BackupOperator backupOperator, @NonNull DriveId backupFileId) {
-		new BackupImportingTask(backupOperator, backupFileId).execute();
+	public static void execute(@NonNull BackupOperator backupOperator) {
+		new BackupImportingTask(backupOperator).execute();
 	}
 
-	private BackupImportingTask(BackupOperator backupOperator, DriveId backupFileId) {
+	private BackupImportingTask(BackupOperator backupOperator) {
 		this.backupOperator = backupOperator;
-
-		this.backupFileId = backupFileId;
 	}
 
 	@Override
 	protected BusEvent doInBackground(Void... parameters) {
-		backupOperator.importBackup(backupFileId);
+		return new BackupImportedEvent(backupOperator.importBackup(this));
+	}
+
+	@Override
+	public void onProgress(long processedRowsCount, long rowsCount, long processedBytesCount, long bytesCount) {
+		publishProgress(new BackupProgressEvent(processedRowsCount, rowsCount, processedBytesCount, bytesCount));
+	}
+
+	@Override
+	protected void onProgressUpdate(BackupProgressEvent... progressEvents) {
+		super.onProgressUpdate(progressEvents);
 
-		return new BackupFinishedEvent();
+		BusProvider.getBus().post(progressEvents[0]);
 	}
 
 	@Override
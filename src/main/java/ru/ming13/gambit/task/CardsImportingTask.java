@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.task;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import ru.ming13.gambit.bus.BusEvent;
+import ru.ming13.gambit.bus.BusProvider;
+import ru.ming13.gambit.bus.CardsImportProgressEvent;
+import ru.ming13.gambit.bus.CardsImportedEvent;
+import ru.ming13.gambit.importing.CardsImportListener;
+import ru.ming13.gambit.importing.CardsImporter;
+import ru.ming13.gambit.model.Deck;
+
+public class CardsImportingTask extends AsyncTask<Void, CardsImportProgressEvent, BusEvent> implements CardsImportListener
+{
+	private final ContentResolver contentResolver;
+
+	private final Deck deck;
+	private final Uri cardsFileUri;
+
+	public static CardsImportingTask execute(@NonNull ContentResolver contentResolver, @NonNull Deck deck, @NonNull Uri cardsFileUri) {
+		CardsImportingTask task = new CardsImportingTask(contentResolver, deck, cardsFileUri);
+		task.execute();
+
+		return task;
+	}
+
+	private CardsImportingTask(ContentResolver contentResolver, Deck deck, Uri cardsFileUri) {
+		this.contentResolver = contentResolver;
+
+		this.deck = deck;
+		this.cardsFileUri = cardsFileUri;
+	}
+
+	@Override
+	protected BusEvent doInBackground(Void... parameters) {
+		return new CardsImportedEvent(importCards());
+	}
+
+	private long importCards() {
+		try {
+			AssetFileDescriptor cardsFileDescriptor = contentResolver.openAssetFileDescriptor(cardsFileUri, "r");
+
+			try {
+				return CardsImporter.of(contentResolver, deck).importCards(
+					cardsFileDescriptor.createInputStream(), cardsFileDescriptor.getLength(), this);
+			} finally {
+				cardsFileDescriptor.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void onProgress(long importedCardsCount, long processedCount, long count) {
+		publishProgress(new CardsImportProgressEvent(importedCardsCount, processedCount, count));
+	}
+
+	@Override
+	public boolean isImportCancelled() {
+		return isCancelled();
+	}
+
+	@Override
+	protected void onProgressUpdate(CardsImportProgressEvent... progressEvents) {
+		super.onProgressUpdate(progressEvents);
+
+		BusProvider.getBus().post(progressEvents[0]);
+	}
+
+	@Override
+	protected void onPostExecute(BusEvent busEvent) {
+		super.onPostExecute(busEvent);
+
+		BusProvider.getBus().post(busEvent);
+	}
+
+	@Override
+	protected void onCancelled(BusEvent busEvent) {
+		super.onCancelled(busEvent);
+
+		// Batches inserted before the cancellation are kept
+
+		BusProvider.getBus().post(busEvent);
+	}
+}
@@ -16,16 +16,10 @@
 
 package ru.ming13.gambit.task;
 
-import android.content.ContentProviderOperation;
 import android.content.ContentResolver;
-import android.content.OperationApplicationException;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.AsyncTask;
-import android.os.RemoteException;
-
-import java.util.ArrayList;
-import java.util.List;
+import android.os.Bundle;
 
 import ru.ming13.gambit.model.Deck;
 import ru.ming13.gambit.provider.GambitContract;
@@ -50,68 +44,16 @@ abstract class DeckCardsOrderChangingTask extends AsyncTask<Void, Void, Void>
 	}
 
 	private void changeCardsOrder() {
-		try {
-			List<Uri> cardUris = getCardUris();
-			List<Integer> cardOrderIndices = buildCardOrderIndices(cardUris.size());
-
-			contentResolver.applyBatch(GambitContract.AUTHORITY, buildChangingOrderOperations(cardUris, cardOrderIndices));
-		} catch (RemoteException e) {
-			throw new RuntimeException(e);
-		} catch (OperationApplicationException e) {
-			e.printStackTrace();
-		}
-	}
-
-	private List<Uri> getCardUris() {
-		List<Uri> cardUris = new ArrayList<>();
-
-		Cursor cardsCursor = loadCards();
-
-		while (cardsCursor.moveToNext()) {
-			cardUris.add(buildCardUri(getCardId(cardsCursor)));
-		}
-
-		cardsCursor.close();
-
-		return cardUris;
-	}
-
-	private Cursor loadCards() {
-		String[] projection = {GambitContract.Cards._ID};
-
-		return contentResolver.query(buildCardsUri(), projection, null, null, null);
+		contentResolver.call(buildCardsUri(), getCardsOrderMethod(), String.valueOf(deck.getId()), buildCardsOrderExtras(deck));
 	}
 
 	private Uri buildCardsUri() {
 		return GambitContract.Cards.getCardsUri(deck.getId());
 	}
 
-	private Uri buildCardUri(long cardId) {
-		return GambitContract.Cards.getCardUri(deck.getId(), cardId);
-	}
-
-	private long getCardId(Cursor cardsCursor) {
-		return cardsCursor.getLong(cardsCursor.getColumnIndex(GambitContract.Cards._ID));
-	}
-
-	protected abstract List<Integer> buildCardOrderIndices(int indicesCount);
-
-	private ArrayList<ContentProviderOperation> buildChangingOrderOperations(List<Uri> cardsUris, List<Integer> cardsOrderIndices) {
-		ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+	protected abstract String getCardsOrderMethod();
 
-		for (int cardIndex = 0; cardIndex < cardsUris.size(); cardIndex++) {
-			Uri cardUri = cardsUris.get(cardIndex);
-			Integer cardOrderIndex = cardsOrderIndices.get(cardIndex);
-
-			operations.add(buildChangingOrderOperation(cardUri, cardOrderIndex));
-		}
-
-		return operations;
-	}
-
-	private ContentProviderOperation buildChangingOrderOperation(Uri cardUri, Integer cardOrderIndex) {
-		return ContentProviderOperation.newUpdate(cardUri)
-			.withValue(GambitContract.Cards.ORDER_INDEX, cardOrderIndex)
-			.build();
+	protected Bundle buildCardsOrderExtras(Deck deck) {
+		return null;
 	}
 }
@@ -46,42 +46,42 @@ public class DeckCardsOrderLoadingTask extends AsyncTask<Void, Void, BusEvent>
 
 	@Override
 	protected BusEvent doInBackground(Void... parameters) {
-		if (areCardsShuffled()) {
-			return new DeckCardsOrderLoadedEvent(DeckCardsOrderLoadedEvent.CardsOrder.SHUFFLE);
+		long cardsShuffleSeed = getCardsShuffleSeed();
+
+		if (cardsShuffleSeed != GambitContract.Decks.Defaults.SHUFFLE_SEED) {
+			return new DeckCardsOrderLoadedEvent(DeckCardsOrderLoadedEvent.CardsOrder.SHUFFLE, cardsShuffleSeed);
 		} else {
-			return new DeckCardsOrderLoadedEvent(DeckCardsOrderLoadedEvent.CardsOrder.ORIGINAL);
+			return new DeckCardsOrderLoadedEvent(DeckCardsOrderLoadedEvent.CardsOrder.ORIGINAL, cardsShuffleSeed);
 		}
 	}
 
-	private boolean areCardsShuffled() {
-		Cursor cardsCursor = loadCards();
+	private long getCardsShuffleSeed() {
+		Cursor deckCursor = loadDeck();
 
 		try {
-			while (cardsCursor.moveToNext()) {
-				if (getCardOrderIndex(cardsCursor) != GambitContract.Cards.Defaults.ORDER_INDEX) {
-					return true;
-				}
+			if (deckCursor.moveToFirst()) {
+				return getDeckShuffleSeed(deckCursor);
 			}
 
-			return false;
+			return GambitContract.Decks.Defaults.SHUFFLE_SEED;
 		} finally {
-			cardsCursor.close();
+			deckCursor.close();
 		}
 	}
 
-	private Cursor loadCards() {
-		String[] projection = {GambitContract.Cards.ORDER_INDEX};
+	private Cursor loadDeck() {
+		String[] projection = {GambitContract.Decks.SHUFFLE_SEED};
 
-		return contentResolver.query(buildCardsUri(), projection, null, null, null);
+		return contentResolver.query(buildDeckUri(), projection, null, null, null);
 	}
 
-	private Uri buildCardsUri() {
-		return GambitContract.Cards.getCardsUri(deck.getId());
+	private Uri buildDeckUri() {
+		return GambitContract.Decks.getDeckUri(deck.getId());
 	}
 
-	private int getCardOrderIndex(Cursor cardsCursor) {
-		return cardsCursor.getInt(
-			cardsCursor.getColumnIndex(GambitContract.Cards.ORDER_INDEX));
+	private long getDeckShuffleSeed(Cursor deckCursor) {
+		return deckCursor.getLong(
+			deckCursor.getColumnIndex(GambitContract.Decks.SHUFFLE_SEED));
 	}
 
 	@Override
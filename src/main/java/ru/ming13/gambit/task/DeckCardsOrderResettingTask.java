@@ -19,9 +19,6 @@ package ru.ming13.gambit.task;
 import android.content.ContentResolver;
 import android.support.annotation.NonNull;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import ru.ming13.gambit.model.Deck;
 import ru.ming13.gambit.provider.GambitContract;
 
@@ -36,17 +33,7 @@ public class DeckCardsOrderResettingTask extends DeckCardsOrderChangingTask
 	}
 
 	@Override
-	protected List<Integer> buildCardOrderIndices(int indicesCount) {
-		return generateDefaultCardsIndices(indicesCount);
-	}
-
-	private List<Integer> generateDefaultCardsIndices(int indicesCount) {
-		List<Integer> cardIndices = new ArrayList<>();
-
-		for (int index = 0; index < indicesCount; index++) {
-			cardIndices.add(GambitContract.Cards.Defaults.ORDER_INDEX);
-		}
-
-		return cardIndices;
+	protected String getCardsOrderMethod() {
+		return GambitContract.Methods.RESET_DECK_ORDER;
 	}
 }
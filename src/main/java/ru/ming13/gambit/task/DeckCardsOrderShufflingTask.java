@@ -17,13 +17,11 @@
 package ru.ming13.gambit.task;
 
 import android.content.ContentResolver;
+import android.os.Bundle;
 import android.support.annotation.NonNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.provider.GambitContract;
 
 public class DeckCardsOrderShufflingTask extends DeckCardsOrderChangingTask
 {
@@ -36,25 +34,15 @@ public class DeckCardsOrderShufflingTask extends DeckCardsOrderChangingTask
 	}
 
 	@Override
-	protected List<Integer> buildCardOrderIndices(int indicesCount) {
-		return generateShuffledNaturalNumbers(indicesCount);
+	protected String getCardsOrderMethod() {
+		return GambitContract.Methods.SHUFFLE_DECK;
 	}
 
-	private List<Integer> generateShuffledNaturalNumbers(int numbersCount) {
-		List<Integer> naturalNumbersList = generateNaturalNumbers(numbersCount);
-
-		Collections.shuffle(naturalNumbersList);
-
-		return naturalNumbersList;
-	}
-
-	private List<Integer> generateNaturalNumbers(int numbersCount) {
-		List<Integer> naturalNumbersList = new ArrayList<>();
-
-		for (Integer naturalNumber = 0; naturalNumber < numbersCount; naturalNumber++) {
-			naturalNumbersList.add(naturalNumber);
-		}
+	@Override
+	protected Bundle buildCardsOrderExtras(Deck deck) {
+		Bundle cardsOrderExtras = new Bundle();
+		cardsOrderExtras.putLong(GambitContract.Decks.SHUFFLE_SEED, deck.getShuffleSeed());
 
-		return naturalNumbersList;
+		return cardsOrderExtras;
 	}
 }
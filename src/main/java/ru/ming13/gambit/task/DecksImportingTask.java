@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.task;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+
+import ru.ming13.gambit.bus.BusEvent;
+import ru.ming13.gambit.bus.BusProvider;
+import ru.ming13.gambit.bus.DecksImportProgressEvent;
+import ru.ming13.gambit.bus.DecksImportedEvent;
+import ru.ming13.gambit.bus.DecksNotImportedEvent;
+import ru.ming13.gambit.importing.CardsImportListener;
+import ru.ming13.gambit.importing.DecksImporter;
+import ru.ming13.gambit.importing.UnsupportedPackageException;
+
+public class DecksImportingTask extends AsyncTask<Void, DecksImportProgressEvent, BusEvent> implements CardsImportListener
+{
+	private final Context context;
+
+	private final Uri packageFileUri;
+
+	public static DecksImportingTask execute(@NonNull Context context, @NonNull Uri packageFileUri) {
+		DecksImportingTask task = new DecksImportingTask(context, packageFileUri);
+		task.execute();
+
+		return task;
+	}
+
+	private DecksImportingTask(Context context, Uri packageFileUri) {
+		this.context = context.getApplicationContext();
+
+		this.packageFileUri = packageFileUri;
+	}
+
+	@Override
+	protected BusEvent doInBackground(Void... parameters) {
+		try {
+			return new DecksImportedEvent(importDecks());
+		} catch (UnsupportedPackageException e) {
+			return new DecksNotImportedEvent(DecksNotImportedEvent.Reason.UNSUPPORTED_PACKAGE);
+		} catch (IOException e) {
+			// Files which are not packages, truncated archives and unreadable collections end up here
+
+			return new DecksNotImportedEvent(DecksNotImportedEvent.Reason.INVALID_PACKAGE);
+		}
+	}
+
+	private long importDecks() throws IOException {
+		AssetFileDescriptor packageFileDescriptor = context.getContentResolver().openAssetFileDescriptor(packageFileUri, "r");
+
+		try {
+			return DecksImporter.of(context).importDecks(
+				packageFileDescriptor.createInputStream(), packageFileDescriptor.getLength(), this);
+		} finally {
+			packageFileDescriptor.close();
+		}
+	}
+
+	@Override
+	public void onProgress(long importedCardsCount, long processedCount, long count) {
+		publishProgress(new DecksImportProgressEvent(importedCardsCount, processedCount, count));
+	}
+
+	@Override
+	public boolean isImportCancelled() {
+		return isCancelled();
+	}
+
+	@Override
+	protected void onProgressUpdate(DecksImportProgressEvent... progressEvents) {
+		super.onProgressUpdate(progressEvents);
+
+		BusProvider.getBus().post(progressEvents[0]);
+	}
+
+	@Override
+	protected void onPostExecute(BusEvent busEvent) {
+		super.onPostExecute(busEvent);
+
+		BusProvider.getBus().post(busEvent);
+	}
+
+	@Override
+	protected void onCancelled(BusEvent busEvent) {
+		super.onCancelled(busEvent);
+
+		// Batches inserted before the cancellation are kept
+
+		BusProvider.getBus().post(busEvent);
+	}
+}
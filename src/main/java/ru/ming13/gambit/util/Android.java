@@ -18,6 +18,8 @@ package ru.ming13.gambit.util;
 
 import android.content.Context;
 import android.content.res.Configuration;
+import android.os.Build;
+import android.provider.Settings;
 import android.support.annotation.NonNull;
 
 import ru.ming13.gambit.BuildConfig;
@@ -40,6 +42,33 @@ public final class Android
 		return context.getResources().getBoolean(R.bool.tablet);
 	}
 
+	public static boolean isIntentClipDataAvailable() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN;
+	}
+
+	public static boolean isJobSchedulerAvailable() {
+		return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+	}
+
+	public static boolean isAnimatorEnabled(@NonNull Context context) {
+		// Animations are turned off with the animator duration scale, in developer options and by accessibility services
+
+		return getAnimatorDurationScale(context) > 0;
+	}
+
+	@SuppressWarnings("deprecation")
+	private static float getAnimatorDurationScale(Context context) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+			return Settings.Global.getFloat(context.getContentResolver(), Settings.Global.ANIMATOR_DURATION_SCALE, 1);
+		}
+
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			return Settings.System.getFloat(context.getContentResolver(), Settings.System.ANIMATOR_DURATION_SCALE, 1);
+		}
+
+		return 1;
+	}
+
 	public static String getApplicationId() {
 		return BuildConfig.APPLICATION_ID;
 	}
@@ -17,6 +17,7 @@
 package ru.ming13.gambit.util;
 
 import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.support.annotation.NonNull;
 import android.view.View;
@@ -32,4 +33,22 @@ public final class Animations
 
 		shakeAnimator.start();
 	}
+
+	public static void flip(@NonNull final View view) {
+		Animator flipAnimator = ObjectAnimator.ofFloat(view, View.ROTATION_Y, -90, 0);
+		flipAnimator.setDuration(300);
+
+		// Rotating a hardware layer does not redraw the view contents on every frame
+
+		view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+
+		flipAnimator.addListener(new AnimatorListenerAdapter() {
+			@Override
+			public void onAnimationEnd(Animator animator) {
+				view.setLayerType(View.LAYER_TYPE_NONE, null);
+			}
+		});
+
+		flipAnimator.start();
+	}
 }
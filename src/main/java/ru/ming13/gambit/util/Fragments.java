@@ -20,6 +20,7 @@ import android.app.Activity;
 import android.app.DialogFragment;
 import android.app.Fragment;
 import android.app.FragmentManager;
+import android.net.Uri;
 import android.support.annotation.IdRes;
 import android.support.annotation.NonNull;
 
@@ -27,6 +28,7 @@ import com.f2prateek.bundler.Bundler;
 
 import ru.ming13.gambit.fragment.CardCreationFragment;
 import ru.ming13.gambit.fragment.CardEditingFragment;
+import ru.ming13.gambit.fragment.CardsImportFragment;
 import ru.ming13.gambit.fragment.CardsListFragment;
 import ru.ming13.gambit.fragment.CardsPagerFragment;
 import ru.ming13.gambit.fragment.DeckCreationFragment;
@@ -50,6 +52,8 @@ public final class Fragments
 		public static final String DECK = "deck";
 		public static final String CARD = "card";
 
+		public static final String FILE_URI = "file_uri";
+
 		public static final String MESSAGE = "message";
 
 		public static final String ERROR_CODE = "error_code";
@@ -120,6 +124,17 @@ public final class Fragments
 			return fragment;
 		}
 
+		public static Fragment buildCardsImportFragment(@NonNull Deck deck, @NonNull Uri cardsFileUri) {
+			Fragment fragment = new CardsImportFragment();
+
+			fragment.setArguments(Bundler.create()
+				.put(Arguments.DECK, deck)
+				.put(Arguments.FILE_URI, cardsFileUri)
+				.get());
+
+			return fragment;
+		}
+
 		public static Fragment buildMessageFragment(@NonNull String message) {
 			Fragment fragment = new MessageFragment();
 
@@ -16,9 +16,12 @@
 
 package ru.ming13.gambit.util;
 
+import android.annotation.TargetApi;
+import android.content.ClipData;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.os.Build;
 import android.support.annotation.NonNull;
 
 import ru.ming13.gambit.R;
@@ -31,6 +34,7 @@ import ru.ming13.gambit.activity.DeckCreationActivity;
 import ru.ming13.gambit.activity.DeckEditingActivity;
 import ru.ming13.gambit.model.Card;
 import ru.ming13.gambit.model.Deck;
+import ru.ming13.gambit.provider.GambitContract;
 
 public final class Intents
 {
@@ -55,6 +59,19 @@ public final class Intents
 
 		public static final int DRIVE_FILE_CREATE = 2;
 		public static final int DRIVE_FILE_OPEN = 3;
+
+		public static final int CARDS_FILE_OPEN = 4;
+		public static final int DECKS_FILE_OPEN = 5;
+	}
+
+	private static final class MimeTypes
+	{
+		private MimeTypes() {
+		}
+
+		public static final String CARDS_FILE = "text/*";
+		public static final String DECKS_FILE = "*/*";
+		public static final String DECK_EXPORT = "text/csv";
 	}
 
 	private static final class UriMasks
@@ -120,6 +137,65 @@ public final class Intents
 			return intent;
 		}
 
+		public Intent buildCardsFileOpeningIntent() {
+			Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+			intent.addCategory(Intent.CATEGORY_OPENABLE);
+			intent.setType(MimeTypes.CARDS_FILE);
+
+			return intent;
+		}
+
+		public Intent buildDecksFileOpeningIntent() {
+			// Anki packages have no registered MIME type
+
+			Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+			intent.addCategory(Intent.CATEGORY_OPENABLE);
+			intent.setType(MimeTypes.DECKS_FILE);
+
+			return intent;
+		}
+
+		public Intent buildDeckSharingIntent(@NonNull Deck deck) {
+			// The export is streamed by the provider, receivers read it with a temporary permission
+
+			Uri deckExportUri = GambitContract.Decks.getDeckExportUri(deck.getId(), GambitContract.ExportFormats.CSV);
+
+			Intent intent = new Intent(Intent.ACTION_SEND);
+			intent.setType(MimeTypes.DECK_EXPORT);
+			intent.putExtra(Intent.EXTRA_SUBJECT, deck.getTitle());
+			intent.putExtra(Intent.EXTRA_STREAM, deckExportUri);
+			intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+
+			// Permission flags cover the intent data and, since Jelly Bean, the clip data, extras are not covered
+
+			if (Android.isIntentClipDataAvailable()) {
+				setUpClipData(intent, ClipData.newRawUri(deck.getTitle(), deckExportUri));
+			} else {
+				intent.setDataAndType(deckExportUri, MimeTypes.DECK_EXPORT);
+			}
+
+			Intent chooserIntent = Intent.createChooser(intent, null);
+
+			if (Android.isIntentClipDataAvailable()) {
+				// The chooser passes the permission on only for URIs it is granted itself
+
+				setUpClipData(chooserIntent, getClipData(intent));
+			}
+
+			return chooserIntent;
+		}
+
+		@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+		private void setUpClipData(Intent intent, ClipData clipData) {
+			intent.setClipData(clipData);
+			intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+		}
+
+		@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+		private ClipData getClipData(Intent intent) {
+			return intent.getClipData();
+		}
+
 		public Intent buildBackupIntent() {
 			return new Intent(context, BackupActivity.class);
 		}
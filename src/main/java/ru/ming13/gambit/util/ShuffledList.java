@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 Artur Dryomov
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.ming13.gambit.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Random;
+
+public final class ShuffledList<T> extends AbstractList<T>
+{
+	private static final long NO_SEED = 0;
+
+	private final List<T> list;
+	private final int[] positions;
+
+	public static <T> List<T> of(@NonNull List<T> list, long seed) {
+		if (seed == NO_SEED) {
+			return list;
+		} else {
+			return new ShuffledList<>(list, seed);
+		}
+	}
+
+	public static long buildSeed() {
+		Random random = new Random();
+
+		long seed;
+
+		do {
+			seed = random.nextLong();
+		} while (seed == NO_SEED);
+
+		return seed;
+	}
+
+	private ShuffledList(List<T> list, long seed) {
+		this.list = list;
+		this.positions = buildPositions(list.size(), seed);
+	}
+
+	private int[] buildPositions(int positionsCount, long seed) {
+		int[] positions = new int[positionsCount];
+
+		for (int position = 0; position < positionsCount; position++) {
+			positions[position] = position;
+		}
+
+		// Fisher–Yates, the same seed always gives the same permutation
+
+		Random random = new Random(seed);
+
+		for (int position = positionsCount - 1; position > 0; position--) {
+			int swapPosition = random.nextInt(position + 1);
+
+			int swapValue = positions[swapPosition];
+			positions[swapPosition] = positions[position];
+			positions[position] = swapValue;
+		}
+
+		return positions;
+	}
+
+	@Override
+	public T get(int position) {
+		return list.get(positions[position]);
+	}
+
+	@Override
+	public int size() {
+		return positions.length;
+	}
+}
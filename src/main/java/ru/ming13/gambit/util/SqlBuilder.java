@@ -18,6 +18,9 @@ package ru.ming13.gambit.util;
 
 import android.text.TextUtils;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class SqlBuilder
 {
 	private SqlBuilder() {
@@ -35,10 +38,167 @@ public class SqlBuilder
 		return String.format("delete from %s", table);
 	}
 
+	public static String buildDeletionClause(String table, String selection) {
+		return String.format("delete from %s where %s", table, selection);
+	}
+
 	public static String buildInsertionClause(String table, String alias) {
 		return String.format("insert into %s select * from %s.%s", table, alias, table);
 	}
 
+	public static String buildUpdatingClause(String table, String assignment, String selection) {
+		return String.format("update %s set %s where %s", table, assignment, selection);
+	}
+
+	public static String buildRandomAssignment(String field) {
+		return String.format("%s = (random() & %d) + 1", field, Integer.MAX_VALUE);
+	}
+
+	public static String buildSubquerySelectionClause(String field, String subqueryField, String subqueryTable, String subquerySelection) {
+		return String.format("%s in (select %s from %s where %s)", field, subqueryField, subqueryTable, subquerySelection);
+	}
+
+	public static String buildInclusionSelectionClause(String field, List<Long> values) {
+		return String.format("%s in (%s)", field, TextUtils.join(",", values));
+	}
+
+	public static String buildExclusionSelectionClause(String field, String subqueryField, String subqueryTable) {
+		return String.format("%s not in (select %s from %s)", field, subqueryField, subqueryTable);
+	}
+
+	public static String buildGreaterClause(String field, long value) {
+		return String.format("%s > %d", field, value);
+	}
+
+	public static String buildInequalityClause(String field, long value) {
+		return String.format("%s != %d", field, value);
+	}
+
+	public static String buildSavepointClause(String savepoint) {
+		return String.format("savepoint %s", savepoint);
+	}
+
+	public static String buildSavepointReleasingClause(String savepoint) {
+		return String.format("release %s", savepoint);
+	}
+
+	public static String buildCheckpointClause(String mode) {
+		return String.format("pragma wal_checkpoint(%s)", mode);
+	}
+
+	public static String buildAutoCheckpointClause(int pagesCount) {
+		return String.format("pragma wal_autocheckpoint = %d", pagesCount);
+	}
+
+	public static String buildValuesInsertionClause(String table, String... columns) {
+		String[] placeholders = new String[columns.length];
+		Arrays.fill(placeholders, "?");
+
+		return String.format("insert into %s (%s) values (%s)", table, TextUtils.join(",", columns), TextUtils.join(",", placeholders));
+	}
+
+	public static String buildValuesUpdatingClause(String table, String keyColumn, String... columns) {
+		String[] placeholders = new String[columns.length];
+		Arrays.fill(placeholders, "?");
+
+		return buildUpdatingClause(table, buildAssignment(columns, placeholders), buildParameterSelectionClause(keyColumn));
+	}
+
+	public static String buildParameterSelectionClause(String field) {
+		return buildEqualityClause(field, "?");
+	}
+
+	public static String buildRowInsertionClause(String table, String[] columns, String[] values) {
+		return String.format("insert into %s (%s) values (%s)", table, TextUtils.join(",", columns), TextUtils.join(",", values));
+	}
+
+	public static String buildSelectionInsertionClause(String table, String[] columns, String sourceTable, String[] sourceColumns) {
+		return String.format("insert into %s (%s) select %s from %s", table, TextUtils.join(",", columns), TextUtils.join(",", sourceColumns), sourceTable);
+	}
+
+	public static String buildAssignment(String[] fields, String[] values) {
+		String[] fieldsAssignments = new String[fields.length];
+
+		for (int fieldPosition = 0; fieldPosition < fields.length; fieldPosition++) {
+			fieldsAssignments[fieldPosition] = buildEqualityClause(fields[fieldPosition], values[fieldPosition]);
+		}
+
+		return TextUtils.join(", ", fieldsAssignments);
+	}
+
+	public static String buildEqualityClause(String field, String value) {
+		return String.format("%s = %s", field, value);
+	}
+
+	public static String buildRowReference(String row, String field) {
+		return String.format("%s.%s", row, field);
+	}
+
+	public static String buildMatchClause(String table, String expression) {
+		return String.format("%s match %s", table, expression);
+	}
+
+	public static String buildLimitClause(String offset, String limit) {
+		if (offset == null) {
+			return limit;
+		} else {
+			return String.format("%s,%s", offset, limit);
+		}
+	}
+
+	public static String[] buildKeysetSelectionClauses(String comparison, String[] fields, String[] values) {
+		// (a = 1 and b = 2 and c > 3), (a = 1 and b > 2), (a > 1) — keys past the given one
+		// go through these in order, and each of them is a single seek on an index over all fields
+
+		String[] keysetClauses = new String[fields.length];
+
+		for (int fieldPosition = 0; fieldPosition < fields.length; fieldPosition++) {
+			String[] fieldClauses = new String[fieldPosition + 1];
+
+			for (int equalFieldPosition = 0; equalFieldPosition < fieldPosition; equalFieldPosition++) {
+				fieldClauses[equalFieldPosition] = buildEqualityClause(fields[equalFieldPosition], values[equalFieldPosition]);
+			}
+
+			fieldClauses[fieldPosition] = String.format("%s %s %s", fields[fieldPosition], comparison, values[fieldPosition]);
+
+			keysetClauses[fields.length - 1 - fieldPosition] = TextUtils.join(" and ", fieldClauses);
+		}
+
+		return keysetClauses;
+	}
+
+	public static String buildUnionClause(String[] queries, String sortOrder, String limit) {
+		String[] subqueries = new String[queries.length];
+
+		for (int queryPosition = 0; queryPosition < queries.length; queryPosition++) {
+			subqueries[queryPosition] = String.format("select * from (%s)", queries[queryPosition]);
+		}
+
+		return String.format("%s order by %s limit %s", TextUtils.join(" union all ", subqueries), sortOrder, limit);
+	}
+
+	public static String buildSortingClause(String query, String sortOrder) {
+		return String.format("select * from (%s) order by %s", query, sortOrder);
+	}
+
+	public static String buildSortOrderClause(String direction, String... fields) {
+		String[] fieldsClauses = new String[fields.length];
+
+		for (int fieldPosition = 0; fieldPosition < fields.length; fieldPosition++) {
+			fieldsClauses[fieldPosition] = String.format("%s %s", fields[fieldPosition], direction);
+		}
+
+		return TextUtils.join(", ", fieldsClauses);
+	}
+
+	public static String buildMaximumProjection(String field) {
+		return String.format("max(%s)", field);
+	}
+
+	public static String buildCountProjection(String alias) {
+		return String.format("count(*) as %s", alias);
+	}
+
 	public static String buildSelectionClause(String field, long id) {
 		return String.format("%s = %d", field, id);
 	}
@@ -47,6 +207,26 @@ public class SqlBuilder
 		return String.format("create table %s (%s)", table, description);
 	}
 
+	public static String buildVirtualTableCreationClause(String table, String module, String description) {
+		return String.format("create virtual table if not exists %s using %s (%s)", table, module, description);
+	}
+
+	public static String buildTriggerCreationClause(String trigger, String event, String table, String statement) {
+		return String.format("create trigger if not exists %s after %s on %s begin %s; end", trigger, event, table, statement);
+	}
+
+	public static String buildIndexCreationClause(String index, String table, String... columns) {
+		return String.format("create index if not exists %s on %s (%s)", index, table, TextUtils.join(",", columns));
+	}
+
+	public static String buildReplacingUniqueConstraint(String... columns) {
+		return String.format("unique (%s) on conflict replace", TextUtils.join(",", columns));
+	}
+
+	public static String buildColumnAdditionClause(String table, String columnDescription) {
+		return String.format("alter table %s add column %s", table, columnDescription);
+	}
+
 	public static String buildColumnDescription(String columnName, String columnParameters) {
 		return String.format("%s %s", columnName, columnParameters);
 	}